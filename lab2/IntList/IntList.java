@@ -58,10 +58,10 @@ public class IntList {
      * IntList mySmallerList = IntList.of(1, 4, 9);
      */
     public static IntList of(int ...argList) {
-        if (argList.length == 0)
-            return null;
-        int[] restList = new int[argList.length - 1];
-        System.arraycopy(argList, 1, restList, 0, argList.length - 1);
-        return new IntList(argList[0], IntList.of(restList));
+        IntList result = null;
+        for (int i = argList.length - 1; i >= 0; i -= 1) {
+            result = new IntList(argList[i], result);
+        }
+        return result;
     }
 }
@@ -3,14 +3,14 @@ package IntList;
 public class IntListExercises {
 
     /**
-     * Part A: (Buggy) mutative method that adds a constant C to each
+     * Part A: Mutative method that adds a constant C to each
      * element of an IntList
      *
      * @param lst IntList from Lecture
      */
     public static void addConstant(IntList lst, int c) {
         IntList head = lst;
-        while (head.rest != null) {
+        while (head != null) {
             head.first += c;
             head = head.rest;
         }
@@ -59,24 +59,23 @@ public class IntListExercises {
     }
 
     /**
-     * Part C: (Buggy) mutative method that squares each prime
+     * Part C: Mutative method that squares each prime
      * element of the IntList.
      *
      * @param lst IntList from Lecture
      * @return True if there was an update to the list
      */
     public static boolean squarePrimes(IntList lst) {
-        // Base Case: we have reached the end of the list
-        if (lst == null) {
-            return false;
-        }
-
-        boolean currElemIsPrime = Primes.isPrime(lst.first);
-
-        if (currElemIsPrime) {
-            lst.first *= lst.first;
+        // Iterate rather than recurse so that long lists cannot overflow
+        // the stack, and visit every node instead of stopping at the first
+        // prime.
+        boolean changed = false;
+        for (IntList p = lst; p != null; p = p.rest) {
+            if (Primes.isPrime(p.first)) {
+                p.first *= p.first;
+                changed = true;
+            }
         }
-
-        return currElemIsPrime || squarePrimes(lst.rest);
+        return changed;
     }
 }
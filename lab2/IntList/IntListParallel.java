@@ -0,0 +1,195 @@
+package IntList;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Bulk, fork-join versions of the per-element IntListExercises mutations.
+ * An IntList cannot be split without walking it, so the list is walked
+ * once to collect its nodes into an array and the array is then split
+ * recursively; int[] inputs are split directly.
+ */
+public class IntListParallel {
+
+    /** Ranges of at most this many elements are handled sequentially. */
+    private static final int THRESHOLD = 1 << 12;
+
+    /**
+     * Replaces every element x of LST with F(x), using POOL, and returns
+     * the number of elements whose value changed. F must be side-effect
+     * free, since it is called from several threads at once.
+     */
+    public static int transform(ForkJoinPool pool, IntList lst, IntUnaryOperator f) {
+        if (lst == null) {
+            return 0;
+        }
+        IntList[] nodes = new IntList[lst.iterativeSize()];
+        int i = 0;
+        for (IntList p = lst; p != null; p = p.rest) {
+            nodes[i] = p;
+            i += 1;
+        }
+        return pool.invoke(new NodeTask(nodes, 0, nodes.length, f));
+    }
+
+    /** Same as transform(pool, lst, f), for an array of ints. */
+    public static int transform(ForkJoinPool pool, int[] items, IntUnaryOperator f) {
+        return pool.invoke(new ArrayTask(items, 0, items.length, f));
+    }
+
+    /** Transforms LST on the common pool. */
+    public static int transform(IntList lst, IntUnaryOperator f) {
+        return transform(ForkJoinPool.commonPool(), lst, f);
+    }
+
+    /** Transforms ITEMS on the common pool. */
+    public static int transform(int[] items, IntUnaryOperator f) {
+        return transform(ForkJoinPool.commonPool(), items, f);
+    }
+
+    /** Parallel IntListExercises.addConstant. */
+    public static void addConstant(IntList lst, int c) {
+        transform(lst, x -> x + c);
+    }
+
+    /** Parallel IntListExercises.addConstant over an array. */
+    public static void addConstant(int[] items, int c) {
+        transform(items, x -> x + c);
+    }
+
+    /** Parallel IntListExercises.squarePrimes. */
+    public static boolean squarePrimes(IntList lst) {
+        return transform(lst, IntListParallel::squareIfPrime) > 0;
+    }
+
+    /** Parallel IntListExercises.squarePrimes over an array. */
+    public static boolean squarePrimes(int[] items) {
+        return transform(items, IntListParallel::squareIfPrime) > 0;
+    }
+
+    private static int squareIfPrime(int x) {
+        return Primes.isPrime(x) ? x * x : x;
+    }
+
+    /** Applies F to the nodes in [LO, HI), splitting in half until small. */
+    private static class NodeTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final IntList[] nodes;
+        private final int lo;
+        private final int hi;
+        private final IntUnaryOperator f;
+
+        NodeTask(IntList[] nodes, int lo, int hi, IntUnaryOperator f) {
+            this.nodes = nodes;
+            this.lo = lo;
+            this.hi = hi;
+            this.f = f;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (hi - lo <= THRESHOLD) {
+                int changed = 0;
+                for (int i = lo; i < hi; i += 1) {
+                    int old = nodes[i].first;
+                    int now = f.applyAsInt(old);
+                    if (now != old) {
+                        nodes[i].first = now;
+                        changed += 1;
+                    }
+                }
+                return changed;
+            }
+            int mid = (lo + hi) >>> 1;
+            NodeTask left = new NodeTask(nodes, lo, mid, f);
+            left.fork();
+            int right = new NodeTask(nodes, mid, hi, f).compute();
+            return left.join() + right;
+        }
+    }
+
+    /** Applies F to the items in [LO, HI), splitting in half until small. */
+    private static class ArrayTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] items;
+        private final int lo;
+        private final int hi;
+        private final IntUnaryOperator f;
+
+        ArrayTask(int[] items, int lo, int hi, IntUnaryOperator f) {
+            this.items = items;
+            this.lo = lo;
+            this.hi = hi;
+            this.f = f;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (hi - lo <= THRESHOLD) {
+                int changed = 0;
+                for (int i = lo; i < hi; i += 1) {
+                    int old = items[i];
+                    int now = f.applyAsInt(old);
+                    if (now != old) {
+                        items[i] = now;
+                        changed += 1;
+                    }
+                }
+                return changed;
+            }
+            int mid = (lo + hi) >>> 1;
+            ArrayTask left = new ArrayTask(items, lo, mid, f);
+            left.fork();
+            int right = new ArrayTask(items, mid, hi, f).compute();
+            return left.join() + right;
+        }
+    }
+
+    /**
+     * Times squarePrimes on a list of N random ints (default 4,000,000)
+     * with 1, 2, 4, ... worker threads, and then with one per core, and
+     * prints the speedup of each over the single-threaded IntListExercises
+     * version. One untimed pass of each version runs first, so that
+     * neither is timed while the JIT is still compiling it.
+     */
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 4_000_000;
+        int[] values = new Random(61).ints(n, 0, Integer.MAX_VALUE).toArray();
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        IntListExercises.squarePrimes(IntList.of(values));
+        time(values, cores);
+
+        IntList lst = IntList.of(values);
+        long start = System.nanoTime();
+        IntListExercises.squarePrimes(lst);
+        double baseline = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%12s %12s %12s\n", "threads", "time (s)", "speedup");
+        System.out.printf("--------------------------------------\n");
+        System.out.printf("%12s %12.3f %12.2f\n", "sequential", baseline, 1.0);
+        for (int threads = 1; ; threads = Math.min(2 * threads, cores)) {
+            double time = time(values, threads);
+            System.out.printf("%12d %12.3f %12.2f\n", threads, time, baseline / time);
+            if (threads == cores) {
+                break;
+            }
+        }
+    }
+
+    /** Returns the seconds taken by transform to square the primes of a
+     *  list of VALUES with THREADS worker threads. */
+    private static double time(int[] values, int threads) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        IntList lst = IntList.of(values);
+        long start = System.nanoTime();
+        transform(pool, lst, IntListParallel::squareIfPrime);
+        double time = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+        return time;
+    }
+}
@@ -0,0 +1,44 @@
+package IntList;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class IntListParallelTest {
+
+    /** The parallel versions must match the sequential one on a long list. */
+    @Test
+    public void testSquarePrimesMatchesSequential() {
+        int[] values = new Random(5).ints(100000, -1000, 46000).toArray();
+        IntList expected = IntList.of(values);
+        IntList actual = IntList.of(values);
+        assertEquals(IntListExercises.squarePrimes(expected),
+                     IntListParallel.squarePrimes(actual));
+        IntListParallel.squarePrimes(values);
+
+        int i = 0;
+        for (IntList e = expected, a = actual; e != null; e = e.rest, a = a.rest) {
+            assertEquals(e.first, a.first);
+            assertEquals(e.first, values[i]);
+            i += 1;
+        }
+    }
+
+    @Test
+    public void testAddConstant() {
+        IntList lst = IntList.of(1, 2, 3, 4, 5);
+        IntListParallel.addConstant(lst, 2);
+        assertEquals("3 -> 4 -> 5 -> 6 -> 7", lst.toString());
+
+        int[] items = {1, 2, 3};
+        IntListParallel.addConstant(items, -1);
+        assertArrayEquals(new int[]{0, 1, 2}, items);
+    }
+
+    @Test
+    public void testSquarePrimesNoChange() {
+        assertFalse(IntListParallel.squarePrimes(IntList.of(4, 6, 8)));
+        assertFalse(IntListParallel.squarePrimes((IntList) null));
+    }
+}
@@ -1,68 +1,272 @@
 package IntList;
 
+import java.util.Arrays;
+import java.util.BitSet;
+
 public class Primes {
 
+    /** Numbers below this bound are answered from a cached sieve. */
+    private static final int SMALL_LIMIT = 1 << 16;
+
+    /** Bit i is set iff i is prime, for 0 <= i < SMALL_LIMIT. */
+    private static final BitSet SMALL_PRIMES = sieve(SMALL_LIMIT);
+
+    /** Largest n for which (n - 1) * (n - 1) still fits in a long. */
+    private static final long DIRECT_MUL_LIMIT = 3037000499L;
+
+    /**
+     * Miller-Rabin bases that give the correct answer for every n < 2^64
+     * (Jim Sinclair's set), so the test below is fully deterministic.
+     */
+    private static final long[] WITNESSES =
+        {2, 325, 9375, 28178, 450775, 9780504, 1795265022};
+
+    /** Number of sieve bits processed at a time by primesBetween. */
+    private static final int SEGMENT_SIZE = 1 << 15;
+
+    /** Largest prime primesBetween sieves with. Numbers left uncrossed
+     *  above BASE_LIMIT^2 are confirmed with isPrime instead, so the base
+     *  sieve stays small however large the range's bounds are. */
+    private static final int BASE_LIMIT = 1 << 24;
+
     /**
-     * This (complicated) algorithm returns True if its argument is prime,
-     * otherwise False. When you're debugging, stepping into this function may
-     * not be the best idea! Consider instead stepping *over* this function,
-     * and ensuring that its return value makes sense.
+     * Returns True if its argument is prime, otherwise False.
      *
-     * If you're curious, this algorithm uses Fermat's Little Theorem as a
-     * primality test, and returns the correct answer w.h.p. (due to the presence)
-     * of Carmichael numbers. If this makes no sense to you, good! It shouldn't.
-     * The goal of this function is to make sure you learn to abstract away the inner
-     * workings of a function and debug it as a black-box with the "Step Over" feature.
+     * Small arguments are looked up in a cached sieve; everything else goes
+     * through a deterministic Miller-Rabin test, so the answer is always
+     * exact and never depends on Math.random().
      *
-     * @source: https://www.geeksforgeeks.org/primality-test-set-2-fermet-method/
      * @param n an arbitary integrer
      * @return True iff. the integer is prime
      */
     public static boolean isPrime(int n) {
-        // Corner cases
-        if (n <= 1 || n == 4) return false;
-        if (n <= 3) return true;
-
-        int k = 3; // Try k = 3 times
-        while (k > 0)
-        {
-            // Pick a random number in [2..n-2]
-            // Above corner cases make sure that n > 4
-            int a = 2 + (int)(Math.random() % (n - 4));
-
-            // Fermat's little theorem
-            if (power(a, n - 1, n) != 1)
-                return false;
+        return isPrime((long) n);
+    }
 
-            k--;
+    /** Same as isPrime(int), for the full range of long values. */
+    public static boolean isPrime(long n) {
+        if (n < SMALL_LIMIT) {
+            return n >= 2 && SMALL_PRIMES.get((int) n);
+        }
+        if ((n & 1) == 0 || n % 3 == 0 || n % 5 == 0 || n % 7 == 0) {
+            return false;
         }
+        if (n <= DIRECT_MUL_LIMIT) {
+            return millerRabinDirect(n);
+        }
+        return millerRabinMontgomery(n);
+    }
 
+    /**
+     * Returns, in increasing order, every prime p with LO <= p < HI.
+     * Uses a segmented Sieve of Eratosthenes, so only SEGMENT_SIZE bits
+     * of the range are being crossed off at any one time. Any bounds up to
+     * Long.MAX_VALUE are allowed, as long as HI - LO fits in an int.
+     */
+    public static long[] primesBetween(long lo, long hi) {
+        if (lo < 0 || hi < lo || hi - lo > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("bad range [" + lo + ", " + hi + ")");
+        }
+        lo = Math.max(lo, 2);
+        if (hi <= lo) {
+            return new long[0];
+        }
+
+        long limit = Math.min(isqrt(hi - 1), BASE_LIMIT);
+        long sieved = limit * limit;
+        int[] basePrimes = basePrimes(limit);
+        long[] result = new long[16];
+        int count = 0;
+        boolean[] composite = new boolean[SEGMENT_SIZE];
+
+        /* Offsets from LO never exceed hi - lo + SEGMENT_SIZE, so, unlike
+         * the segment bounds themselves, they cannot overflow. */
+        for (long offset = 0; offset < hi - lo; offset += SEGMENT_SIZE) {
+            long segLo = lo + offset;
+            int len = (int) Math.min(SEGMENT_SIZE, hi - segLo);
+            Arrays.fill(composite, 0, len, false);
+            for (int p : basePrimes) {
+                long sq = (long) p * p;
+                if (sq >= segLo + len) {
+                    break;
+                }
+                long first = sq >= segLo ? sq - segLo : Math.floorMod(-segLo, p);
+                for (long m = first; m < len; m += p) {
+                    composite[(int) m] = true;
+                }
+            }
+            for (int i = 0; i < len; i += 1) {
+                if (!composite[i] && (segLo + i <= sieved || isPrime(segLo + i))) {
+                    if (count == result.length) {
+                        result = Arrays.copyOf(result, count * 2);
+                    }
+                    result[count] = segLo + i;
+                    count += 1;
+                }
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /** Returns a BitSet of size N in which bit i is set iff i is prime. */
+    private static BitSet sieve(int n) {
+        BitSet primes = new BitSet(n);
+        if (n > 2) {
+            primes.set(2, n);
+        }
+        for (int p = 2; (long) p * p < n; p = primes.nextSetBit(p + 1)) {
+            for (int m = p * p; m < n; m += p) {
+                primes.clear(m);
+            }
+        }
+        return primes;
+    }
+
+    /** Returns all primes <= LIMIT, reusing the cached sieve when possible. */
+    private static int[] basePrimes(long limit) {
+        BitSet primes = limit < SMALL_LIMIT ? SMALL_PRIMES : sieve((int) limit + 1);
+        int[] result = new int[primes.get(0, (int) limit + 1).cardinality()];
+        int i = 0;
+        for (int p = primes.nextSetBit(2); p >= 0 && p <= limit; p = primes.nextSetBit(p + 1)) {
+            result[i] = p;
+            i += 1;
+        }
+        return result;
+    }
+
+    /** Returns floor(sqrt(N)) for non-negative N, exactly. Compares by
+     *  division, since squaring overflows near Long.MAX_VALUE. */
+    private static long isqrt(long n) {
+        long r = (long) Math.sqrt((double) n);
+        while (r > 0 && r > n / r) {
+            r -= 1;
+        }
+        while (r + 1 <= n / (r + 1)) {
+            r += 1;
+        }
+        return r;
+    }
+
+    /** Miller-Rabin for odd N small enough that products fit in a long. */
+    private static boolean millerRabinDirect(long n) {
+        long d = n - 1;
+        int s = Long.numberOfTrailingZeros(d);
+        d >>= s;
+        for (long a : WITNESSES) {
+            a %= n;
+            if (a == 0) {
+                continue;
+            }
+            long x = powMod(a, d, n);
+            if (x == 1 || x == n - 1) {
+                continue;
+            }
+            boolean witness = true;
+            for (int r = 1; r < s; r += 1) {
+                x = x * x % n;
+                if (x == n - 1) {
+                    witness = false;
+                    break;
+                }
+            }
+            if (witness) {
+                return false;
+            }
+        }
         return true;
     }
 
+    /** Returns A^E mod N, for N <= DIRECT_MUL_LIMIT. */
+    static long powMod(long a, long e, long n) {
+        long res = 1;
+        a %= n;
+        while (e > 0) {
+            if ((e & 1) == 1) {
+                res = res * a % n;
+            }
+            e >>= 1;
+            a = a * a % n;
+        }
+        return res;
+    }
+
     /**
-     * This is a helper method to isPrime. You can ignore this method.
-     * It is an iterative Function to calculate a^n mod p in log time
-     *
-     * @source: https://www.geeksforgeeks.org/primality-test-set-2-fermet-method/
+     * Miller-Rabin for odd N above DIRECT_MUL_LIMIT. All arithmetic is
+     * done in Montgomery form with R = 2^64, so every modular product is
+     * two 64x64 multiplies and a subtraction instead of a 128-bit division.
      */
-    static int power(int a, int n, int p)
-    {
-        // Initialize result
-        int res = 1;
-
-        // Update 'a' if 'a' >= p
-        a = a % p;
-
-        while (n > 0)
-        {
-            // If n is odd, multiply 'a' with result
-            if ((n & 1) == 1)
-                res = (res * a) % p;
-
-            // n must be even now
-            n = n >> 1; // n = n/2
-            a = (a * a) % p;
+    private static boolean millerRabinMontgomery(long n) {
+        long nInv = inverse64(n);
+        long one = Long.remainderUnsigned(-1L, n) + 1;
+        if (one == n) {
+            one = 0;
+        }
+        long r2 = one;
+        for (int i = 0; i < 64; i += 1) {
+            r2 = addMod(r2, r2, n);
+        }
+        long minusOne = n - one;
+
+        long d = n - 1;
+        int s = Long.numberOfTrailingZeros(d);
+        d >>= s;
+        for (long a : WITNESSES) {
+            a %= n;
+            if (a == 0) {
+                continue;
+            }
+            long x = montPow(montMul(a, r2, n, nInv), d, one, n, nInv);
+            if (x == one || x == minusOne) {
+                continue;
+            }
+            boolean witness = true;
+            for (int r = 1; r < s; r += 1) {
+                x = montMul(x, x, n, nInv);
+                if (x == minusOne) {
+                    witness = false;
+                    break;
+                }
+            }
+            if (witness) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Returns N^-1 mod 2^64 for odd N, by Newton iteration. */
+    private static long inverse64(long n) {
+        long x = n;
+        for (int i = 0; i < 5; i += 1) {
+            x *= 2 - n * x;
+        }
+        return x;
+    }
+
+    /** Returns (A + B) mod N for 0 <= A, B < N < 2^63. */
+    private static long addMod(long a, long b, long n) {
+        long sum = a + b;
+        return (sum < 0 || sum >= n) ? sum - n : sum;
+    }
+
+    /** Returns A * B * 2^-64 mod N, for 0 <= A, B < N. */
+    static long montMul(long a, long b, long n, long nInv) {
+        long hi = Math.multiplyHigh(a, b);
+        long m = a * b * nInv;
+        long mnHi = Math.multiplyHigh(m, n) + ((m >> 63) & n);
+        long t = hi - mnHi;
+        return t < 0 ? t + n : t;
+    }
+
+    /** Returns BASE^E in Montgomery form, where ONE is 2^64 mod N. */
+    private static long montPow(long base, long e, long one, long n, long nInv) {
+        long res = one;
+        while (e > 0) {
+            if ((e & 1) == 1) {
+                res = montMul(res, base, n, nInv);
+            }
+            e >>= 1;
+            base = montMul(base, base, n, nInv);
         }
         return res;
     }
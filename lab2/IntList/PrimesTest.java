@@ -0,0 +1,93 @@
+package IntList;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+public class PrimesTest {
+
+    /** Checks isPrime against a trial-division answer for small n. */
+    @Test
+    public void testSmallNumbers() {
+        for (int n = -10; n < 100000; n += 1) {
+            assertEquals("n = " + n, trialDivision(n), Primes.isPrime(n));
+        }
+    }
+
+    /** Carmichael numbers and strong pseudoprimes fool the Fermat test. */
+    @Test
+    public void testPseudoprimes() {
+        long[] composites = {561, 1105, 1729, 2465, 2821, 6601, 8911, 3215031751L,
+            2152302898747L, 3474749660383L, 341550071728321L, 3825123056546413051L};
+        for (long n : composites) {
+            assertFalse("n = " + n, Primes.isPrime(n));
+        }
+    }
+
+    /** Compares against BigInteger near the int and long boundaries. */
+    @Test
+    public void testLargeNumbers() {
+        assertTrue(Primes.isPrime(Integer.MAX_VALUE));
+        assertTrue(Primes.isPrime(Long.MAX_VALUE - 24));
+        assertFalse(Primes.isPrime(Long.MAX_VALUE));
+        long[] starts = {3037000000L, 4294967000L, 1000000000000L, Long.MAX_VALUE - 2000};
+        for (long start : starts) {
+            for (long n = start; n < start + 1000; n += 1) {
+                boolean expected = BigInteger.valueOf(n).isProbablePrime(50);
+                assertEquals("n = " + n, expected, Primes.isPrime(n));
+            }
+        }
+    }
+
+    /** The segmented sieve must agree with isPrime across segment edges. */
+    @Test
+    public void testPrimesBetween() {
+        long lo = 999_000_000L;
+        long hi = lo + 200_000;
+        long[] primes = Primes.primesBetween(lo, hi);
+        int i = 0;
+        for (long n = lo; n < hi; n += 1) {
+            if (Primes.isPrime(n)) {
+                assertEquals(n, primes[i]);
+                i += 1;
+            }
+        }
+        assertEquals(primes.length, i);
+        assertArrayEquals(new long[]{2, 3, 5, 7}, Primes.primesBetween(0, 10));
+        assertEquals(0, Primes.primesBetween(24, 29).length);
+    }
+
+    /** Bounds near Long.MAX_VALUE must neither overflow nor need a huge
+     *  base sieve. */
+    @Test
+    public void testPrimesBetweenLargeBounds() {
+        long[] starts = {(1L << 48) - 50_000, Long.MAX_VALUE - 100_000};
+        for (long lo : starts) {
+            long hi = lo + 100_000;
+            long[] primes = Primes.primesBetween(lo, hi);
+            int i = 0;
+            for (long n = lo; n < hi; n += 1) {
+                if (BigInteger.valueOf(n).isProbablePrime(50)) {
+                    assertEquals(n, primes[i]);
+                    i += 1;
+                }
+            }
+            assertEquals(primes.length, i);
+        }
+        assertArrayEquals(new long[]{Long.MAX_VALUE - 24},
+                          Primes.primesBetween(Long.MAX_VALUE - 30, Long.MAX_VALUE));
+    }
+
+    private static boolean trialDivision(int n) {
+        if (n < 2) {
+            return false;
+        }
+        for (int d = 2; d * d <= n; d += 1) {
+            if (n % d == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
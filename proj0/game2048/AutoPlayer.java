@@ -0,0 +1,234 @@
+package game2048;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+
+/** A computer player for a 4x4 Model.
+ *
+ *  Each move is chosen by expectimax search (see Expectimax) with
+ *  iterative deepening: depth 1, then 2, and so on up to a maximum depth,
+ *  for as long as a per-move time budget allows. Each depth searches the
+ *  legal moves from the current position as separate fork-join tasks, and
+ *  all of them share one TranspositionTable, so positions reached by
+ *  different move orders (and positions searched on earlier moves) are
+ *  evaluated once. A depth that runs out of time is abandoned, and the
+ *  move chosen by the deepest complete search is played. Depth 1 always
+ *  completes.
+ *
+ *  Cached values ignore the probability cutoff under which they were
+ *  computed, so a search with a table may choose differently from one
+ *  without, though never by much.
+ */
+public class AutoPlayer implements MovePolicy {
+
+    /** Default number of slots in the transposition table, as a power of 2. */
+    static final int DEFAULT_TABLE_BITS = 22;
+
+    /** A player searching at most MAXDEPTH moves ahead and for about
+     *  MILLISPERMOVE milliseconds per move, on the common fork-join pool. */
+    public AutoPlayer(int maxDepth, long millisPerMove) {
+        this(maxDepth, millisPerMove, ForkJoinPool.commonPool(), DEFAULT_TABLE_BITS);
+    }
+
+    /** A player searching at most MAXDEPTH moves ahead and for about
+     *  MILLISPERMOVE milliseconds per move (0 for no limit), running its
+     *  searches in POOL, with a transposition table of 2 ** TABLEBITS slots
+     *  (none if TABLEBITS is 0). */
+    public AutoPlayer(int maxDepth, long millisPerMove, ForkJoinPool pool,
+                      int tableBits) {
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("depth must be at least 1");
+        }
+        _maxDepth = maxDepth;
+        _timed = millisPerMove > 0;
+        /* toNanos saturates rather than overflowing. */
+        _budgetNanos = _timed ? TimeUnit.MILLISECONDS.toNanos(millisPerMove) : 0;
+        _pool = pool;
+        _table = tableBits == 0 ? null : new TranspositionTable(tableBits);
+    }
+
+    /** Searches one root move to a fixed depth. */
+    private class RootTask extends RecursiveTask<Double> {
+        /** Version of the serialized form. */
+        private static final long serialVersionUID = 1L;
+
+        RootTask(long board, int depth, boolean timed, long deadline) {
+            _board = board;
+            _depth = depth;
+            _timed = timed;
+            _deadline = deadline;
+        }
+
+        @Override
+        protected Double compute() {
+            Expectimax search = _timed ? new Expectimax(_depth, _table, _deadline)
+                : new Expectimax(_depth, _table);
+            try {
+                return search.chance(_board, _depth - 1, 1.0);
+            } catch (Expectimax.TimeUp excp) {
+                return Double.NaN;
+            } finally {
+                _taskNodes = search.nodes();
+            }
+        }
+
+        /** Position after the root move. */
+        private final long _board;
+        /** Depth to search to. */
+        private final int _depth;
+        /** True iff the search has a deadline. */
+        private final boolean _timed;
+        /** System.nanoTime() at which to give up, if _timed. */
+        private final long _deadline;
+        /** Nodes searched. */
+        private long _taskNodes;
+    }
+
+    /** Returns the best move for MODEL, which must be 4x4, or null if
+     *  there is none. */
+    public Side bestMove(Model model) {
+        return bestMove(BitBoard.fromModel(model));
+    }
+
+    /** Returns the best move from BOARD, or null if there is none. */
+    public Side bestMove(long board) {
+        long start = System.nanoTime();
+        /* May wrap around, which comparing differences of nanoTime
+         * values allows for. */
+        long deadline = start + _budgetNanos;
+        Side[] sides = Side.values();
+        Side best = null;
+        long nodes = 0;
+        int depth = 0;
+        for (int d = 1; d <= _maxDepth; d += 1) {
+            RootTask[] tasks = new RootTask[sides.length];
+            for (int i = 0; i < sides.length; i += 1) {
+                long next = BitBoard.tilt(board, sides[i]);
+                if (next != board) {
+                    tasks[i] = new RootTask(next, d, _timed && d > 1, deadline);
+                }
+            }
+            Side bestAtDepth = null;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            boolean complete = true;
+            for (int i = 0; i < sides.length; i += 1) {
+                if (tasks[i] != null) {
+                    _pool.execute(tasks[i]);
+                }
+            }
+            for (int i = 0; i < sides.length; i += 1) {
+                if (tasks[i] == null) {
+                    continue;
+                }
+                double value = tasks[i].join();
+                nodes += tasks[i]._taskNodes;
+                if (Double.isNaN(value)) {
+                    complete = false;
+                } else if (value > bestValue) {
+                    bestValue = value;
+                    bestAtDepth = sides[i];
+                }
+            }
+            if (!complete || bestAtDepth == null) {
+                break;
+            }
+            best = bestAtDepth;
+            depth = d;
+            if (_timed && System.nanoTime() - deadline > 0) {
+                break;
+            }
+        }
+        _lastDepth = depth;
+        _lastNodes = nodes;
+        _lastNanos = System.nanoTime() - start;
+        _totalNodes += nodes;
+        _totalNanos += _lastNanos;
+        return best;
+    }
+
+    @Override
+    public Side choose(long board, SplittableRandom random) {
+        return bestMove(board);
+    }
+
+    /** Tilts MODEL in the best direction. Returns false if there was no
+     *  legal move. */
+    public boolean move(Model model) {
+        Side side = bestMove(model);
+        return side != null && model.tilt(side);
+    }
+
+    /** Depth of the deepest complete search on the last move. */
+    public int lastDepth() {
+        return _lastDepth;
+    }
+
+    /** Positions evaluated on the last move, including abandoned searches. */
+    public long lastNodes() {
+        return _lastNodes;
+    }
+
+    /** Positions evaluated per second over all moves so far. */
+    public double nodesPerSecond() {
+        return _totalNanos == 0 ? 0 : _totalNodes * 1e9 / _totalNanos;
+    }
+
+    /** Plays one seeded game on a Model and prints the search statistics.
+     *  ARGS are [MAXDEPTH [MILLISPERMOVE [SEED]]]. */
+    public static void main(String... args) {
+        int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        long millis = args.length > 1 ? Long.parseLong(args[1]) : 50;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 61;
+        AutoPlayer player = new AutoPlayer(maxDepth, millis);
+        SplittableRandom random = new SplittableRandom(seed);
+        Model model = new Model(BitBoard.SIZE);
+        addRandomTile(model, random);
+        int moves = 0;
+        int depths = 0;
+        while (!model.gameOver()) {
+            addRandomTile(model, random);
+            if (!player.move(model)) {
+                break;
+            }
+            moves += 1;
+            depths += player.lastDepth();
+        }
+        long board = BitBoard.fromModel(model);
+        System.out.printf("score %d after %d moves; largest tile %d%n",
+                          model.score(), moves, 1 << BitBoard.maxExponent(board));
+        System.out.printf("mean depth %.2f (max %d, %d ms/move), %.0f nodes/s on %d threads%n",
+                          moves == 0 ? 0.0 : (double) depths / moves, maxDepth, millis,
+                          player.nodesPerSecond(), ForkJoinPool.commonPool().getParallelism());
+    }
+
+    /** Adds a tile to a random empty square of MODEL, as Game does. */
+    private static void addRandomTile(Model model, SplittableRandom random) {
+        while (true) {
+            int c = random.nextInt(model.size()), r = random.nextInt(model.size());
+            if (model.tile(c, r) == null) {
+                int v = random.nextDouble() <= Main.TILE2_PROBABILITY ? 2 : 4;
+                model.addTile(Tile.create(v, c, r));
+                return;
+            }
+        }
+    }
+
+    /** Maximum search depth. */
+    private final int _maxDepth;
+    /** True iff moves have a time limit. */
+    private final boolean _timed;
+    /** Time allowed per move, in nanoseconds, if _timed. */
+    private final long _budgetNanos;
+    /** Where searches run. */
+    private final ForkJoinPool _pool;
+    /** Shared cache of searched positions, or null. */
+    private final TranspositionTable _table;
+    /** Statistics. */
+    private int _lastDepth;
+    private long _lastNodes;
+    private long _lastNanos;
+    private long _totalNodes;
+    private long _totalNanos;
+}
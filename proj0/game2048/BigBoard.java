@@ -0,0 +1,295 @@
+package game2048;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/** A board of 2048 of any size (practically up to 1024 x 1024), for
+ *  headless experiments at scale.
+ *
+ *  Each square holds the base-2 logarithm of its tile's value in a byte
+ *  (0 for empty), so tiles far beyond Model.MAX_PIECE are representable;
+ *  two tiles of MAX_EXPONENT do not merge. Squares are stored row-major,
+ *  the square at (C, R) at R * size() + C, as in GridModel.
+ *
+ *  Tilting follows the rules of Model.tilt. The board is a set of
+ *  independent lines perpendicular to the side tilted toward, and a tilt
+ *  given a ForkJoinPool splits the lines into groups of roughly
+ *  LEAF_SQUARES squares that are tilted in parallel. Lines that are rows
+ *  are walked one at a time, since each is contiguous; lines that are
+ *  columns are walked a row at a time across the whole group, so that
+ *  every access is to the next byte rather than one row further on.
+ */
+public class BigBoard {
+
+    /** Largest exponent a square can hold. */
+    public static final int MAX_EXPONENT = 62;
+
+    /** Default number of squares tilted by one fork-join task. */
+    static final int LEAF_SQUARES = 1 << 14;
+
+    /** An empty SIZE x SIZE board. */
+    public BigBoard(int size) {
+        this(size, LEAF_SQUARES);
+    }
+
+    /** An empty SIZE x SIZE board that tilts about LEAFSQUARES squares per
+     *  fork-join task. */
+    BigBoard(int size, int leafSquares) {
+        if (size < 2) {
+            throw new IllegalArgumentException("size must be at least 2");
+        }
+        _size = size;
+        _cells = new byte[size * size];
+        _leafLines = Math.max(1, leafSquares / size);
+        _emptyCount = _cells.length;
+    }
+
+    /** Return the number of squares on one side. */
+    public int size() {
+        return _size;
+    }
+
+    /** Return the exponent of the tile at (COL, ROW), or 0 if none. */
+    public int exponent(int col, int row) {
+        return _cells[row * _size + col];
+    }
+
+    /** Return the value of the tile at (COL, ROW), or 0 if none. */
+    public long value(int col, int row) {
+        int e = exponent(col, row);
+        return e == 0 ? 0 : 1L << e;
+    }
+
+    /** Set the square at (COL, ROW) to hold a tile of exponent EXPONENT
+     *  (0 to empty it). */
+    public void setExponent(int col, int row, int exponent) {
+        if (exponent < 0 || exponent > MAX_EXPONENT) {
+            throw new IllegalArgumentException("exponent out of range: " + exponent);
+        }
+        int i = row * _size + col;
+        int old = _cells[i];
+        _emptyCount += (old == 0 ? 0 : 1) - (exponent == 0 ? 0 : 1);
+        _cells[i] = (byte) exponent;
+        if (exponent >= _maxExponent) {
+            _maxExponent = exponent;
+        } else if (old == _maxExponent) {
+            _maxExponent = 0;
+            for (byte e : _cells) {
+                _maxExponent = Math.max(_maxExponent, e);
+            }
+        }
+    }
+
+    /** Return the total score earned by tilts. */
+    public long score() {
+        return _score;
+    }
+
+    /** Return the number of empty squares. */
+    public int emptyCount() {
+        return _emptyCount;
+    }
+
+    /** Return the largest exponent on the board (0 if it is empty). */
+    public int maxExponent() {
+        return _maxExponent;
+    }
+
+    /** Empty the board and reset the score. */
+    public void clear() {
+        Arrays.fill(_cells, (byte) 0);
+        _emptyCount = _cells.length;
+        _maxExponent = 0;
+        _score = 0;
+    }
+
+    /** Put a 2 (with probability Main.TILE2_PROBABILITY) or a 4 on each
+     *  empty square with probability DENSITY, using RANDOM. */
+    public void fillRandom(double density, SplittableRandom random) {
+        for (int i = 0; i < _cells.length; i += 1) {
+            if (_cells[i] == 0 && random.nextDouble() < density) {
+                _cells[i] = (byte) (random.nextDouble() <= Main.TILE2_PROBABILITY ? 1 : 2);
+                _emptyCount -= 1;
+                _maxExponent = Math.max(_maxExponent, _cells[i]);
+            }
+        }
+    }
+
+    /** Copy the squares (but not the score) of OTHER, which must be the
+     *  same size. */
+    public void copyFrom(BigBoard other) {
+        System.arraycopy(other._cells, 0, _cells, 0, _cells.length);
+        _emptyCount = other._emptyCount;
+        _maxExponent = other._maxExponent;
+    }
+
+    /** Tilt toward SIDE on the calling thread. Return true iff this
+     *  changes the board. */
+    public boolean tilt(Side side) {
+        return tilt(side, null);
+    }
+
+    /** Tilt toward SIDE, dividing the work among the threads of POOL (or
+     *  on the calling thread if POOL is null). Return true iff this changes
+     *  the board. */
+    public boolean tilt(Side side, ForkJoinPool pool) {
+        int n = _size;
+        /* Square K of line L is START0 + L * LINESTEP + K * STRIDE. */
+        int start0 = index(side, 0, 0);
+        int lineStep = index(side, 1, 0) - start0;
+        int stride = index(side, 0, 1) - start0;
+        int leaf = pool == null ? n : _leafLines;
+        LineTask task = new LineTask(0, n, leaf, start0, lineStep, stride);
+        if (n <= leaf) {
+            task.compute();
+        } else {
+            pool.invoke(task);
+        }
+        _score += task._score;
+        _emptyCount += task._merges;
+        _maxExponent = Math.max(_maxExponent, task._maxExponent);
+        return task._changed;
+    }
+
+    /** Return the index of square K (from SIDE) of line L, viewed from
+     *  SIDE. */
+    private int index(Side side, int line, int k) {
+        int row = _size - 1 - k;
+        return side.row(line, row, _size) * _size + side.col(line, row, _size);
+    }
+
+    /** Tilts lines [_lo, _hi). Results are in the fields once done. */
+    private class LineTask extends RecursiveAction {
+        /** Version of the serialized form. */
+        private static final long serialVersionUID = 1L;
+
+        LineTask(int lo, int hi, int leaf, int start0, int lineStep, int stride) {
+            _lo = lo;
+            _hi = hi;
+            _leaf = leaf;
+            _start0 = start0;
+            _lineStep = lineStep;
+            _stride = stride;
+        }
+
+        @Override
+        protected void compute() {
+            if (_hi - _lo > _leaf) {
+                int mid = (_lo + _hi) >>> 1;
+                LineTask left = new LineTask(_lo, mid, _leaf, _start0, _lineStep, _stride);
+                LineTask right = new LineTask(mid, _hi, _leaf, _start0, _lineStep, _stride);
+                invokeAll(left, right);
+                _score = left._score + right._score;
+                _merges = left._merges + right._merges;
+                _maxExponent = Math.max(left._maxExponent, right._maxExponent);
+                _changed = left._changed || right._changed;
+            } else if (Math.abs(_stride) == 1) {
+                for (int line = _lo; line < _hi; line += 1) {
+                    tiltLine(_start0 + line * _lineStep);
+                }
+            } else {
+                tiltAcross();
+            }
+        }
+
+        /** Tilt the line whose square nearest the side is at START, and
+         *  whose squares are _stride apart. */
+        private void tiltLine(int start) {
+            byte[] cells = _cells;
+            int fill = start;
+            int mergeable = -1;
+            for (int k = 0, i = start; k < _size; k += 1, i += _stride) {
+                int e = cells[i];
+                if (e == 0) {
+                    continue;
+                }
+                if (mergeable >= 0 && cells[mergeable] == e && e < MAX_EXPONENT) {
+                    merge(cells, i, mergeable, e);
+                    mergeable = -1;
+                } else {
+                    if (fill != i) {
+                        cells[fill] = (byte) e;
+                        cells[i] = 0;
+                        _changed = true;
+                    }
+                    mergeable = fill;
+                    fill += _stride;
+                }
+            }
+        }
+
+        /** Tilt all of lines [_lo, _hi) together, advancing one square
+         *  along every line before moving to the next. */
+        private void tiltAcross() {
+            byte[] cells = _cells;
+            int count = _hi - _lo;
+            int[] fill = new int[count];
+            int[] mergeable = new int[count];
+            int first = _start0 + _lo * _lineStep;
+            for (int j = 0; j < count; j += 1) {
+                fill[j] = first + j * _lineStep;
+                mergeable[j] = -1;
+            }
+            for (int k = 0; k < _size; k += 1) {
+                int i = first + k * _stride;
+                for (int j = 0; j < count; j += 1, i += _lineStep) {
+                    int e = cells[i];
+                    if (e == 0) {
+                        continue;
+                    }
+                    int m = mergeable[j];
+                    if (m >= 0 && cells[m] == e && e < MAX_EXPONENT) {
+                        merge(cells, i, m, e);
+                        mergeable[j] = -1;
+                    } else {
+                        int f = fill[j];
+                        if (f != i) {
+                            cells[f] = (byte) e;
+                            cells[i] = 0;
+                            _changed = true;
+                        }
+                        mergeable[j] = f;
+                        fill[j] = f + _stride;
+                    }
+                }
+            }
+        }
+
+        /** Merge the tile of exponent E at FROM into the equal one at TO. */
+        private void merge(byte[] cells, int from, int to, int e) {
+            cells[to] = (byte) (e + 1);
+            cells[from] = 0;
+            _score += 1L << (e + 1);
+            _merges += 1;
+            _maxExponent = Math.max(_maxExponent, e + 1);
+            _changed = true;
+        }
+
+        /** Range of lines. */
+        private final int _lo, _hi;
+        /** Most lines to tilt without splitting. */
+        private final int _leaf;
+        /** Layout of lines, as in tilt. */
+        private final int _start0, _lineStep, _stride;
+        /** Results. */
+        private long _score;
+        private int _merges;
+        private int _maxExponent;
+        private boolean _changed;
+    }
+
+    /** Squares on a side. */
+    private final int _size;
+    /** Exponents, row-major. */
+    private final byte[] _cells;
+    /** Most lines tilted by one task. */
+    private final int _leafLines;
+    /** Number of empty squares. */
+    private int _emptyCount;
+    /** Largest exponent on the board. */
+    private int _maxExponent;
+    /** Score earned. */
+    private long _score;
+}
@@ -0,0 +1,73 @@
+package game2048;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/** Measures BigBoard tilt latency against board size and number of
+ *  threads. Each tilt starts from the same half-full random board
+ *  (restored, untimed, before every tilt) and the sides are taken in
+ *  turn.
+ */
+public class BigBoardBenchmark {
+
+    /** Board sides measured by default. */
+    private static final int[] SIZES = { 4, 16, 64, 256, 1024 };
+
+    /** Returns the mean latency in microseconds of tilting SIZE x SIZE
+     *  boards with THREADS threads (0 for none: the calling thread
+     *  without fork-join). */
+    private static double meanMicros(int size, int threads) {
+        BigBoard source = new BigBoard(size);
+        source.fillRandom(0.5, new SplittableRandom(size));
+        BigBoard board = new BigBoard(size);
+        ForkJoinPool pool = threads == 0 ? null : new ForkJoinPool(threads);
+        int reps = (int) Math.max(40, Math.min(200_000, (1L << 26) / ((long) size * size)));
+        Side[] sides = Side.values();
+        long nanos = 0;
+        for (int warm = 0; warm < 2; warm += 1) {
+            nanos = 0;
+            for (int r = 0; r < reps; r += 1) {
+                board.copyFrom(source);
+                long start = System.nanoTime();
+                board.tilt(sides[r % sides.length], pool);
+                nanos += System.nanoTime() - start;
+            }
+        }
+        if (pool != null) {
+            pool.shutdown();
+        }
+        return nanos / 1e3 / reps;
+    }
+
+    /** Prints a table of tilt latencies. ARGS are optional board sizes. */
+    public static void main(String... args) {
+        int[] sizes = SIZES;
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i += 1) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        /* 0 (sequential), the powers of two below CORES, and CORES. */
+        int[] threads = new int[2 + 32 - Integer.numberOfLeadingZeros(cores - 1)];
+        for (int i = 1; i < threads.length - 1; i += 1) {
+            threads[i] = 1 << (i - 1);
+        }
+        threads[threads.length - 1] = cores;
+
+        System.out.printf("mean tilt latency (us), %d cores available%n", cores);
+        System.out.printf("%6s %12s", "size", "sequential");
+        for (int i = 1; i < threads.length; i += 1) {
+            System.out.printf(" %9s", threads[i] + " thr");
+        }
+        System.out.println();
+        for (int size : sizes) {
+            System.out.printf("%6d %12.2f", size, meanMicros(size, 0));
+            for (int i = 1; i < threads.length; i += 1) {
+                System.out.printf(" %9.2f", meanMicros(size, threads[i]));
+            }
+            System.out.println();
+        }
+    }
+}
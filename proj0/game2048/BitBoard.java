@@ -0,0 +1,246 @@
+package game2048;
+
+/** A 4x4 board of 2048 packed into a long.
+ *
+ *  Each square is a 4-bit field holding the base-2 logarithm of its
+ *  tile's value (0 for an empty square), so values up to 2^15 fit. The
+ *  square at column C, row R (standard orientation, row 0 at the bottom)
+ *  is the field at bit 4 * (4 * R + C), so each row is one 16-bit "line"
+ *  with column 0 in its low field.
+ *
+ *  Tilting applies the rules in Model.tilt's comment to each of the four
+ *  lines independently. Every possible 16-bit line is precomputed once, so
+ *  a tilt is four table lookups (plus a transpose for NORTH and SOUTH,
+ *  whose lines are columns).
+ */
+public final class BitBoard {
+
+    /** Number of squares on a side of a BitBoard. */
+    public static final int SIZE = 4;
+
+    /** Largest exponent a square can hold. Two tiles of this value do not
+     *  merge, since the result would not fit. */
+    public static final int MAX_EXPONENT = 15;
+
+    /** TOWARD_LOW[L] is line L tilted toward its field 0. */
+    private static final char[] TOWARD_LOW = new char[1 << 16];
+    /** TOWARD_HIGH[L] is line L tilted toward its field 3. */
+    private static final char[] TOWARD_HIGH = new char[1 << 16];
+    /** LINE_SCORE[L] is the score earned by tilting line L (the same in
+     *  either direction, since the same pairs merge). */
+    private static final int[] LINE_SCORE = new int[1 << 16];
+
+    static {
+        int[] cells = new int[SIZE];
+        for (int line = 0; line < 1 << 16; line += 1) {
+            for (int i = 0; i < SIZE; i += 1) {
+                cells[i] = (line >> (4 * i)) & 0xF;
+            }
+            int score = slide(cells);
+            int low = 0;
+            for (int i = 0; i < SIZE; i += 1) {
+                low |= cells[i] << (4 * i);
+            }
+            TOWARD_LOW[line] = (char) low;
+            TOWARD_HIGH[reverse(line)] = (char) reverse(low);
+            LINE_SCORE[line] = score;
+        }
+    }
+
+    /** Not instantiable. */
+    private BitBoard() {
+    }
+
+    /** Tilts CELLS (exponents) toward index 0 in place, following the
+     *  rules of Model.tilt, and returns the score earned. */
+    private static int slide(int[] cells) {
+        int score = 0;
+        int out = 0;
+        boolean lastMerged = false;
+        for (int i = 0; i < cells.length; i += 1) {
+            int v = cells[i];
+            if (v == 0) {
+                continue;
+            }
+            if (out > 0 && !lastMerged && cells[out - 1] == v && v < MAX_EXPONENT) {
+                cells[out - 1] = v + 1;
+                score += 1 << (v + 1);
+                lastMerged = true;
+            } else {
+                cells[out] = v;
+                out += 1;
+                lastMerged = false;
+            }
+        }
+        for (int i = out; i < cells.length; i += 1) {
+            cells[i] = 0;
+        }
+        return score;
+    }
+
+    /** Returns LINE with its four fields in the opposite order. */
+    private static int reverse(int line) {
+        return (line & 0xF) << 12 | (line & 0xF0) << 4
+            | (line >> 4) & 0xF0 | (line >> 12) & 0xF;
+    }
+
+    /** Returns BOARD with rows and columns exchanged. */
+    static long transpose(long board) {
+        long a1 = board & 0xF0F00F0FF0F00F0FL;
+        long a2 = board & 0x0000F0F00000F0F0L;
+        long a3 = board & 0x0F0F00000F0F0000L;
+        long a = a1 | (a2 << 12) | (a3 >>> 12);
+        long b1 = a & 0xFF00FF0000FF00FFL;
+        long b2 = a & 0x00FF00FF00000000L;
+        long b3 = a & 0x00000000FF00FF00L;
+        return b1 | (b2 >>> 24) | (b3 << 24);
+    }
+
+    /** Applies TABLE to each 16-bit line of BOARD. */
+    private static long applyToLines(long board, char[] table) {
+        return (long) table[(int) (board & 0xFFFF)]
+            | (long) table[(int) ((board >>> 16) & 0xFFFF)] << 16
+            | (long) table[(int) ((board >>> 32) & 0xFFFF)] << 32
+            | (long) table[(int) (board >>> 48)] << 48;
+    }
+
+    /** Returns the result of tilting BOARD toward SIDE. */
+    public static long tilt(long board, Side side) {
+        switch (side) {
+            case WEST:
+                return applyToLines(board, TOWARD_LOW);
+            case EAST:
+                return applyToLines(board, TOWARD_HIGH);
+            case SOUTH:
+                return transpose(applyToLines(transpose(board), TOWARD_LOW));
+            default:
+                return transpose(applyToLines(transpose(board), TOWARD_HIGH));
+        }
+    }
+
+    /** Returns the score earned by tilting BOARD toward SIDE. */
+    public static int tiltScore(long board, Side side) {
+        if (side == Side.NORTH || side == Side.SOUTH) {
+            board = transpose(board);
+        }
+        return LINE_SCORE[(int) (board & 0xFFFF)]
+            + LINE_SCORE[(int) ((board >>> 16) & 0xFFFF)]
+            + LINE_SCORE[(int) ((board >>> 32) & 0xFFFF)]
+            + LINE_SCORE[(int) (board >>> 48)];
+    }
+
+    /** Returns the exponent of the tile at (COL, ROW), or 0 if empty. */
+    public static int exponent(long board, int col, int row) {
+        return (int) (board >>> (4 * (SIZE * row + col))) & 0xF;
+    }
+
+    /** Returns the value of the tile at (COL, ROW), or 0 if empty. */
+    public static int value(long board, int col, int row) {
+        int e = exponent(board, col, row);
+        return e == 0 ? 0 : 1 << e;
+    }
+
+    /** Returns BOARD with the square at (COL, ROW) set to EXPONENT. */
+    public static long withExponent(long board, int col, int row, int exponent) {
+        int shift = 4 * (SIZE * row + col);
+        return (board & ~(0xFL << shift)) | (long) exponent << shift;
+    }
+
+    /** Returns the number of empty squares on BOARD. */
+    public static int emptyCount(long board) {
+        /* Fold each field down to its low bit, which is 1 iff it is
+         * nonzero, then count the ones. */
+        long x = board | (board >>> 2);
+        x |= x >>> 1;
+        return SIZE * SIZE - Long.bitCount(x & 0x1111111111111111L);
+    }
+
+    /** Returns the largest exponent on BOARD (0 if it is empty). */
+    public static int maxExponent(long board) {
+        int max = 0;
+        for (; board != 0; board >>>= 4) {
+            max = Math.max(max, (int) (board & 0xF));
+        }
+        return max;
+    }
+
+    /** Returns true iff some tilt would change BOARD. */
+    public static boolean canMove(long board) {
+        for (Side side : Side.values()) {
+            if (tilt(board, side) != board) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Returns the exponent of VALUE, which must be 0 or a power of 2. */
+    static int exponentOf(int value) {
+        return value == 0 ? 0 : Integer.numberOfTrailingZeros(value);
+    }
+
+    /** Returns the BitBoard equivalent to B, which must be 4x4. */
+    public static long fromBoard(Board b) {
+        checkSize(b.size());
+        long board = 0;
+        for (int col = 0; col < SIZE; col += 1) {
+            for (int row = 0; row < SIZE; row += 1) {
+                Tile t = b.tile(col, row);
+                if (t != null) {
+                    board = withExponent(board, col, row, exponentOf(t.value()));
+                }
+            }
+        }
+        return board;
+    }
+
+    /** Returns the BitBoard equivalent to the board of MODEL. */
+    public static long fromModel(Model model) {
+        checkSize(model.size());
+        long board = 0;
+        for (int col = 0; col < SIZE; col += 1) {
+            for (int row = 0; row < SIZE; row += 1) {
+                Tile t = model.tile(col, row);
+                if (t != null) {
+                    board = withExponent(board, col, row, exponentOf(t.value()));
+                }
+            }
+        }
+        return board;
+    }
+
+    /** Returns BOARD's values in the layout taken by the Board and Model
+     *  constructors: indexed by (row, col), with (0, 0) the top-left. */
+    public static int[][] toRawValues(long board) {
+        int[][] raw = new int[SIZE][SIZE];
+        for (int col = 0; col < SIZE; col += 1) {
+            for (int row = 0; row < SIZE; row += 1) {
+                raw[SIZE - 1 - row][col] = value(board, col, row);
+            }
+        }
+        return raw;
+    }
+
+    /** Returns a Board holding the tiles of BOARD. */
+    public static Board toBoard(long board) {
+        return new Board(toRawValues(board), 0);
+    }
+
+    /** Returns a Model holding the tiles of BOARD, with the given SCORE and
+     *  MAXSCORE. */
+    public static Model toModel(long board, int score, int maxScore) {
+        return new Model(toRawValues(board), score, maxScore, false);
+    }
+
+    private static void checkSize(int size) {
+        if (size != SIZE) {
+            throw new IllegalArgumentException("BitBoard only holds 4x4 boards, not "
+                                               + size + "x" + size);
+        }
+    }
+
+    /** Returns BOARD as a string, in the same format as Board.toString. */
+    public static String toString(long board) {
+        return toBoard(board).toString();
+    }
+}
@@ -11,13 +11,17 @@ import java.util.Random;
  * @author hug
  */
 public class Board implements Iterable<Tile> {
-    /** Current contents of the board. */
-    private Tile[][] values;
+    /** Current contents of the board. The square at column C, row R (in
+     *  the standard, NORTH, orientation) is values[R * size + C]. */
+    private Tile[] values;
+    /** Number of squares on a side. */
+    private final int size;
     /** Side that the board currently views as north. */
     private Side viewPerspective;
 
     public Board(int size) {
-        values = new Tile[size][size];
+        this.size = size;
+        values = new Tile[size * size];
         viewPerspective = Side.NORTH;
     }
 
@@ -29,8 +33,8 @@ public class Board implements Iterable<Tile> {
     /** Create a board where RAWVALUES hold the values of the tiles on the board 
      * (0 is null) with a current score of SCORE and the viewing perspective set to north. */
     public Board(int[][] rawValues, int score) {
-        int size = rawValues.length;
-        values = new Tile[size][size];
+        size = rawValues.length;
+        values = new Tile[size * size];
         viewPerspective = Side.NORTH;
         for (int col = 0; col < size; col += 1) {
             for (int row = 0; row < size; row += 1) {
@@ -41,14 +45,14 @@ public class Board implements Iterable<Tile> {
                 } else {
                     tile = Tile.create(value, col, row);
                 }
-                values[col][row] = tile;
+                values[row * size + col] = tile;
             }
         }
     }
 
     /** Returns the size of the board. */
     public int size() {
-        return values.length;
+        return size;
     }
 
     /** Shifts the view of the Board. */
@@ -59,7 +63,7 @@ public class Board implements Iterable<Tile> {
     /** Return the current Tile at (COL, ROW), when sitting with the board
      *  oriented so that SIDE is at the top (farthest) from you. */
     private Tile vtile(int col, int row, Side side) {
-        return values[side.col(col, row, size())][side.row(col, row, size())];
+        return values[side.row(col, row, size) * size + side.col(col, row, size)];
     }
 
     /** Return the current Tile at (COL, ROW), where 0 <= ROW < size(),
@@ -70,14 +74,37 @@ public class Board implements Iterable<Tile> {
 
     /** Clear the board to empty and reset the score. */
     public void clear() {
-        for (Tile[] column : values) {
-            Arrays.fill(column, null);
-        }
+        Arrays.fill(values, null);
     }
 
     /** Adds the tile T to the board */
     public void addTile(Tile t) {
-        values[t.col()][t.row()] = t;
+        values[t.row() * size + t.col()] = t;
+    }
+
+    /** Return the Tile at INDEX, which is ROW * size() + COL for the
+     *  square at (COL, ROW) in the standard orientation, ignoring the
+     *  viewing perspective. Returns null if there is no tile there. */
+    Tile tileAt(int index) {
+        return values[index];
+    }
+
+    /** Places TILE at INDEX (as for tileAt), merging it with the tile
+     *  there if any. Returns whether this is a merge. */
+    boolean moveTo(int index, Tile tile) {
+        int col = index % size, row = index / size;
+        if (tile.col() == col && tile.row() == row) {
+            return false;
+        }
+        Tile tile1 = values[index];
+        values[tile.row() * size + tile.col()] = null;
+        if (tile1 == null) {
+            values[index] = tile.move(col, row);
+            return false;
+        } else {
+            values[index] = tile.merge(col, row, tile1);
+            return true;
+        }
     }
 
     /** Places the Tile TILE at column COL, row ROW where COL and ROW are
@@ -92,13 +119,13 @@ public class Board implements Iterable<Tile> {
             return false;
         }
         Tile tile1 = vtile(col, row, viewPerspective);
-        values[tile.col()][tile.row()] = null;
+        values[tile.row() * size + tile.col()] = null;
 
         if (tile1 == null) {
-            values[pcol][prow] = tile.move(pcol, prow);
+            values[prow * size + pcol] = tile.move(pcol, prow);
             return false;
         } else {
-            values[pcol][prow] = tile.merge(pcol, prow, tile1);
+            values[prow * size + pcol] = tile.merge(pcol, prow, tile1);
             return true;
         }
     }
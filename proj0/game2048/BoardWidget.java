@@ -3,18 +3,29 @@ package game2048;
 import ucb.gui2.Pad;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 
 import java.awt.Font;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.FontMetrics;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
 
 import static java.lang.Math.max;
 import static java.lang.Math.abs;
 import static java.lang.Math.round;
 
 /** A widget that displays a 2048 board.
+ *
+ *  Painting is incremental. The empty board and each tile value (with its
+ *  font and colors from TILE_COLOR_MAP) are rendered once into images, so
+ *  painting is a few image copies. Each animation frame repaints only the
+ *  region swept by the tiles that moved or bloomed since the previous
+ *  frame, and an update repaints only the squares whose values changed.
+ *  Frames are at least the frame period apart (TICK milliseconds unless
+ *  set by setFrameRate), and the time taken by each paint is measured.
  *  @author P. N. Hilfinger
  */
 class BoardWidget extends Pad {
@@ -46,7 +57,7 @@ class BoardWidget extends Pad {
     /** Font for overlay text on board. */
     static final Font OVERLAY_FONT = new Font("SansSerif", 1, 64);
 
-    /** Wait between animation steps (in milliseconds). */
+    /** Default wait between animation frames (in milliseconds). */
     static final int TICK = 10;
 
     /** Amount to move per second (in rows/columns). */
@@ -96,12 +107,17 @@ class BoardWidget extends Pad {
         _size = size;
         _boardSide = size * TILE_SIDE_SEP + TILE_SEP;
         _tiles = new ArrayList<>();
+        _shown = new int[size * size];
         setPreferredSize(_boardSide, _boardSide);
     }
 
     /** Clear all tiles from the board. */
     synchronized void clear() {
         _tiles.clear();
+        if (_grid != null) {
+            Arrays.fill(_grid, 0);
+        }
+        Arrays.fill(_shown, 0);
         repaint();
     }
 
@@ -111,18 +127,46 @@ class BoardWidget extends Pad {
         repaint();
     }
 
+    /** Animate at no more than FPS frames per second. */
+    synchronized void setFrameRate(int fps) {
+        if (fps <= 0) {
+            throw new IllegalArgumentException("frame rate must be positive");
+        }
+        _frameMillis = Math.max(1, 1000 / fps);
+    }
+
+    /** Return a summary of the time taken by paintComponent. */
+    synchronized String paintTimes() {
+        return String.format("%d paints, mean %.3f ms, max %.3f ms",
+                             _paints, _paintNanos / 1e6 / max(1, _paints),
+                             _maxPaintNanos / 1e6);
+    }
+
     @Override
-    /** Render board on G. */
+    /** Render board on G, or the part of it within G's clip. */
     public synchronized void paintComponent(Graphics2D g) {
-        g.setColor(EMPTY_SQUARE_COLOR);
-        g.fillRect(0, 0, _boardSide, _boardSide);
-        g.setColor(BAR_COLOR);
-        for (int k = 0; k <= _boardSide; k += TILE_SIDE_SEP) {
-            g.fillRect(0, k, _boardSide, TILE_SEP);
-            g.fillRect(k, 0, TILE_SEP, _boardSide);
-        }
-        for (Tile tile : _tiles) {
-            render(g, tile);
+        long start = System.nanoTime();
+        _clip = g.getClipBounds();
+        checkImages(g);
+        g.drawImage(_background, 0, 0, _boardSide, _boardSide, null);
+        if (_grid == null) {
+            for (Tile tile : _tiles) {
+                render(g, tile);
+            }
+        } else if (_animatingMoves) {
+            for (int k = 0; k < _moves.size(); k += 1) {
+                render(g, _moves.fromCol(k), _moves.fromRow(k),
+                       _moves.toCol(k), _moves.toRow(k), _moves.value(k), false);
+            }
+        } else {
+            for (int row = 0; row < _size; row += 1) {
+                for (int col = 0; col < _size; col += 1) {
+                    int value = _grid[row * _size + col];
+                    if (value != 0) {
+                        render(g, col, row, col, row, value, blooming(col, row));
+                    }
+                }
+            }
         }
         if (_end) {
             g.setFont(OVERLAY_FONT);
@@ -133,52 +177,148 @@ class BoardWidget extends Pad {
                           - metrics.stringWidth("GAME OVER")) / 2,
                          (2 * _boardSide + metrics.getMaxAscent()) / 4);
         }
+        long nanos = System.nanoTime() - start;
+        _paints += 1;
+        _paintNanos += nanos;
+        _maxPaintNanos = Math.max(_maxPaintNanos, nanos);
+    }
+
+    /** Make sure _background and _tileImages are rendered for the scale of
+     *  G's transform, so that copying them fills whole device pixels. */
+    private void checkImages(Graphics2D g) {
+        double scale = Math.max(1.0, g.getTransform().getScaleX());
+        if (_background != null && scale == _imageScale) {
+            return;
+        }
+        _imageScale = scale;
+        _tileImages.clear();
+        _background = newImage(_boardSide);
+        Graphics2D bg = _background.createGraphics();
+        bg.scale(scale, scale);
+        bg.setColor(EMPTY_SQUARE_COLOR);
+        bg.fillRect(0, 0, _boardSide, _boardSide);
+        bg.setColor(BAR_COLOR);
+        for (int k = 0; k <= _boardSide; k += TILE_SIDE_SEP) {
+            bg.fillRect(0, k, _boardSide, TILE_SEP);
+            bg.fillRect(k, 0, TILE_SEP, _boardSide);
+        }
+        bg.dispose();
+    }
+
+    /** Return an opaque image of SIDE x SIDE pixels at _imageScale. */
+    private BufferedImage newImage(int side) {
+        int pixels = (int) Math.ceil(side * _imageScale);
+        return new BufferedImage(pixels, pixels, BufferedImage.TYPE_INT_RGB);
+    }
+
+    /** Return the image of a tile of value VALUE, rendering it the first
+     *  time. */
+    private BufferedImage tileImage(int value) {
+        BufferedImage image = _tileImages.get(value);
+        if (image == null) {
+            image = newImage(TILE_SIDE);
+            Graphics2D g = image.createGraphics();
+            g.scale(_imageScale, _imageScale);
+            if (value < 100) {
+                g.setFont(TILE_FONT2);
+            } else if (value < 1000) {
+                g.setFont(TILE_FONT3);
+            } else {
+                g.setFont(TILE_FONT4);
+            }
+            FontMetrics metrics = g.getFontMetrics();
+            g.setColor(TILE_COLORS.get(value)[1]);
+            g.fillRect(0, 0, TILE_SIDE, TILE_SIDE);
+            g.setColor(TILE_COLORS.get(value)[0]);
+            String label = Integer.toString(value);
+            g.drawString(label, (TILE_SIDE - metrics.stringWidth(label)) / 2,
+                         (2 * TILE_SIDE + metrics.getMaxAscent()) / 4);
+            g.dispose();
+            _tileImages.put(value, image);
+        }
+        return image;
     }
 
     /** Render TILE on G. */
     private void render(Graphics2D g, Tile tile) {
-        int col0 = tile.col(),
-            row0 = tile.row(),
-            col1 = tile.next().col(),
-            row1 = tile.next().row();
+        render(g, tile.col(), tile.row(), tile.next().col(), tile.next().row(),
+               tile.value(),
+               _bloomingTiles != null && _bloomingTiles.contains(tile));
+    }
+
+    /** Render a tile of value VALUE on G, moving from (COL0, ROW0) to
+     *  (COL1, ROW1) and blooming iff BLOOMING. */
+    private void render(Graphics2D g, int col0, int row0, int col1, int row1,
+                        int value, boolean blooming) {
+        tileBounds(col0, row0, col1, row1, _distMoved, _tileRect);
+        int bloom = blooming ? _bloom : 0;
+        _tileRect.grow(bloom, bloom);
+        if (_clip != null && !_clip.intersects(_tileRect)) {
+            return;
+        }
+        if (bloom > 0) {
+            g.setColor(TILE_COLORS.get(value)[1]);
+            g.fillRect(_tileRect.x, _tileRect.y, _tileRect.width, _tileRect.height);
+        }
+        g.drawImage(tileImage(value), _tileRect.x + bloom, _tileRect.y + bloom,
+                    TILE_SIDE, TILE_SIDE, null);
+    }
+
+    /** Set RESULT to the bounds of a tile that has gone DIST squares of the
+     *  way from (COL0, ROW0) to (COL1, ROW1). */
+    private void tileBounds(int col0, int row0, int col1, int row1, float dist,
+                            Rectangle result) {
         int dcol = col0 < col1 ? 1 : col0 == col1 ? 0 : -1,
             drow = row0 < row1 ? 1 : row0 == row1 ? 0 : -1;
 
         float vcol, vrow;
-        if (_distMoved >= max(abs(col0 - col1), abs(row0 - row1))) {
+        if (dist >= max(abs(col0 - col1), abs(row0 - row1))) {
             vcol = col1; vrow = row1;
         } else {
-            vcol = col0 + _distMoved * dcol;
-            vrow = row0 + _distMoved * drow;
+            vcol = col0 + dist * dcol;
+            vrow = row0 + dist * drow;
         }
 
-        int ulx = Math.round(vcol * TILE_SIDE_SEP + TILE_SEP),
-            uly = Math.round((_size - vrow - 1) * TILE_SIDE_SEP + TILE_SEP);
+        result.setBounds(Math.round(vcol * TILE_SIDE_SEP + TILE_SEP),
+                         Math.round((_size - vrow - 1) * TILE_SIDE_SEP + TILE_SEP),
+                         TILE_SIDE, TILE_SIDE);
+    }
 
-        if (tile.value() < 100) {
-            g.setFont(TILE_FONT2);
-        } else if (tile.value() < 1000) {
-            g.setFont(TILE_FONT3);
-        } else {
-            g.setFont(TILE_FONT4);
-        }
-        FontMetrics metrics = g.getFontMetrics();
-        int bloom;
-        if (_bloomingTiles != null && _bloomingTiles.contains(tile)) {
-            bloom = _bloom;
+    /** Add to the dirty region the squares covered by a tile between
+     *  distances FROM and TO along its path from (COL0, ROW0) to
+     *  (COL1, ROW1). */
+    private void markPath(int col0, int row0, int col1, int row1,
+                          float from, float to) {
+        tileBounds(col0, row0, col1, row1, from, _tileRect);
+        markDirty(_tileRect);
+        tileBounds(col0, row0, col1, row1, to, _tileRect);
+        markDirty(_tileRect);
+    }
+
+    /** Add the square at (COL, ROW), enlarged by the largest bloom, to the
+     *  dirty region. */
+    private void markSquare(int col, int row) {
+        tileBounds(col, row, col, row, 0, _tileRect);
+        int bloom = round(TILE_SIDE * BLOOM_FACTOR);
+        _tileRect.grow(bloom, bloom);
+        markDirty(_tileRect);
+    }
+
+    /** Add RECT to the dirty region. */
+    private void markDirty(Rectangle rect) {
+        if (_dirty.isEmpty()) {
+            _dirty.setBounds(rect);
         } else {
-            bloom = 0;
+            _dirty.add(rect);
         }
-        g.setColor(TILE_COLORS.get(tile.value())[1]);
-        g.fillRect(ulx - bloom, uly - bloom, 2 * bloom + TILE_SIDE,
-                   2 * bloom + TILE_SIDE);
-        g.setColor(TILE_COLORS.get(tile.value())[0]);
-
-        String label = Integer.toString(tile.value());
-        g.drawString(label,
-                     ulx + (TILE_SIDE - metrics.stringWidth(label)) / 2,
-                     uly + (2 * TILE_SIDE + metrics.getMaxAscent()) / 4);
+    }
 
+    /** Request a repaint of the dirty region, and empty it. */
+    private void repaintDirty() {
+        if (!_dirty.isEmpty()) {
+            repaint(_dirty.x, _dirty.y, _dirty.width, _dirty.height);
+            _dirty.setBounds(0, 0, 0, 0);
+        }
     }
 
     /** Return the list of all Tiles in MODEL. */
@@ -208,61 +348,193 @@ class BoardWidget extends Pad {
         return bloomers;
     }
 
-    /** Wait for one tick (TICK milliseconds). */
-    private void tick() {
+    /** Wait for one frame period (releasing our lock, so that the frame
+     *  can be painted). */
+    private void waitFrame() {
         try {
-            wait(TICK);
+            wait(_frameMillis);
         } catch (InterruptedException excp) {
             assert false : "Internal error: unexpected interrupt";
         }
     }
 
+    /** Animate the tiles being displayed moving DIST squares toward their
+     *  next positions, at MOVE_DELTA squares per second whatever the frame
+     *  rate. */
+    private void animateMoves(int dist) {
+        long start = System.nanoTime();
+        _distMoved = 0.0f;
+        while (_distMoved < dist) {
+            waitFrame();
+            float next = Math.min(dist, (System.nanoTime() - start) * 1e-9f * MOVE_DELTA);
+            if (_grid == null) {
+                for (Tile tile : _tiles) {
+                    if (tile.distToNext() > 0) {
+                        markPath(tile.col(), tile.row(), tile.next().col(),
+                                 tile.next().row(), _distMoved, next);
+                    }
+                }
+            } else {
+                for (int k = 0; k < _moves.size(); k += 1) {
+                    if (_moves.distance(k) > 0) {
+                        markPath(_moves.fromCol(k), _moves.fromRow(k),
+                                 _moves.toCol(k), _moves.toRow(k), _distMoved, next);
+                    }
+                }
+            }
+            _distMoved = next;
+            repaintDirty();
+        }
+    }
+
     /** Create the blooming effect on tiles in BLOOMINGTILES. */
     private void doBlooming(ArrayList<Tile> bloomingTiles) {
         _bloomingTiles = bloomingTiles;
         if (bloomingTiles.isEmpty()) {
             return;
         }
-        for (int k = 1; k <= BLOOM_TICKS; k += 1) {
-            _bloom = round(TILE_SIDE * BLOOM_FACTOR * k / BLOOM_TICKS);
-            repaint();
-            tick();
+        bloom();
+        _bloomingTiles = null;
+    }
+
+    /** Grow and shrink the blooming tiles over 2 * BLOOM_TICKS * TICK
+     *  milliseconds. */
+    private void bloom() {
+        long start = System.nanoTime();
+        float half = BLOOM_TICKS * TICK * 1e6f;
+        while (true) {
+            float t = (System.nanoTime() - start) / half;
+            if (t >= 2) {
+                break;
+            }
+            _bloom = round(TILE_SIDE * BLOOM_FACTOR * (t <= 1 ? t : 2 - t));
+            markBlooming();
+            repaintDirty();
+            waitFrame();
         }
-        for (int k = BLOOM_TICKS - 1; k >= 0; k -= 1) {
-            _bloom = round(TILE_SIDE * BLOOM_FACTOR * k / BLOOM_TICKS);
-            repaint();
-            tick();
+        _bloom = 0;
+        markBlooming();
+        repaintDirty();
+    }
+
+    /** Add the squares of the blooming tiles to the dirty region. */
+    private void markBlooming() {
+        if (_grid == null) {
+            for (Tile tile : _bloomingTiles) {
+                markSquare(tile.col(), tile.row());
+            }
+        } else {
+            for (int k = 0; k < _blooms.size(); k += 1) {
+                markSquare(_blooms.toCol(k), _blooms.toRow(k));
+            }
         }
-        _bloomingTiles = null;
+    }
+
+    /** Record that the squares display VALUES (indexed as _grid), adding
+     *  those that change to the dirty region, and set whether the game
+     *  is over to END. */
+    private void show(int[] values, boolean end) {
+        for (int i = 0; i < _shown.length; i += 1) {
+            if (_shown[i] != values[i]) {
+                _shown[i] = values[i];
+                markSquare(i % _size, i / _size);
+            }
+        }
+        if (end != _end) {
+            _end = end;
+            markDirty(new Rectangle(0, 0, _boardSide, _boardSide));
+        }
+        repaintDirty();
+    }
+
+    /** Return true iff the tile at (COL, ROW) is blooming, in grid mode. */
+    private boolean blooming(int col, int row) {
+        for (int k = 0; k < _blooms.size(); k += 1) {
+            if (_blooms.toCol(k) == col && _blooms.toRow(k) == row) {
+                return true;
+            }
+        }
+        return false;
     }
 
 
     /** Move tiles to their new positions and save a new set of tiles from
      *  MODEL, which is assumed to reflect the next state of the tiles after
-     *  the completion of all movement. */
-    synchronized void update(Model model) {
-        float dist;
+     *  the completion of all movement. If not ANIMATE (as when MODEL has
+     *  been tilted several times since the last update), just show the
+     *  new tiles. */
+    synchronized void update(Model model, boolean animate) {
+        if (_grid != null) {
+            _grid = null;
+            repaint();
+        }
         ArrayList<Tile> nextTiles = modelTiles(model);
 
-        dist = 0.0f;
-        for (Tile tile : _tiles) {
-            dist = Math.max(dist, tile.distToNext());
+        int dist = 0;
+        if (animate) {
+            for (Tile tile : _tiles) {
+                dist = Math.max(dist, tile.distToNext());
+            }
         }
+        animateMoves(dist);
+
+        ArrayList<Tile> bloomers =
+            animate ? newTiles(nextTiles) : new ArrayList<>();
+        _tiles = nextTiles;
         _distMoved = 0.0f;
-        while (_distMoved < dist) {
+        int[] values = new int[_size * _size];
+        for (Tile tile : nextTiles) {
+            values[tile.row() * _size + tile.col()] = tile.value();
+        }
+        show(values, model.gameOver());
+        doBlooming(bloomers);
+    }
+
+    /** Animate the changes recorded in MODEL's events (unless not
+     *  ANIMATE), clearing them, and then display MODEL's tiles. Unlike
+     *  update(Model), this reads no Tiles and, once its buffers have grown
+     *  to size, allocates nothing. */
+    synchronized void update(GridModel model, boolean animate) {
+        if (_grid == null) {
+            _grid = new int[_size * _size];
+            _tiles.clear();
             repaint();
-            tick();
-            _distMoved = Math.min(dist,
-                                  _distMoved + TICK * MOVE_DELTA / 1000.0f);
         }
+        TileEvents events = model.events();
+        if (!animate) {
+            events.clear();
+        }
+        _moves.clear();
+        _blooms.clear();
+        int dist = 0;
+        for (int k = 0; k < events.size(); k += 1) {
+            if (events.kind(k) != TileEvents.SPAWN) {
+                _moves.addFrom(events, k);
+                dist = Math.max(dist, events.distance(k));
+            }
+            if (events.kind(k) != TileEvents.MOVE) {
+                _blooms.addFrom(events, k);
+            }
+        }
+        events.clear();
 
+        if (dist > 0) {
+            _animatingMoves = true;
+            animateMoves(dist);
+            _animatingMoves = false;
+        }
 
-        ArrayList<Tile> bloomers = newTiles(nextTiles);
-        _tiles = nextTiles;
-        doBlooming(bloomers);
-        _end = model.gameOver();
+        for (int row = 0; row < _size; row += 1) {
+            for (int col = 0; col < _size; col += 1) {
+                _grid[row * _size + col] = model.value(col, row);
+            }
+        }
         _distMoved = 0.0f;
-        repaint();
+        show(_grid, model.gameOver());
+        if (_blooms.size() > 0) {
+            bloom();
+        }
+        _blooms.clear();
     }
 
     /** A list of Tiles currently being displayed. */
@@ -270,12 +542,44 @@ class BoardWidget extends Pad {
     /** A list of Tiles currently being displayed with blooming effect. */
     private ArrayList<Tile> _bloomingTiles;
 
+    /** Values of the tiles displayed for a GridModel, the square at
+     *  (C, R) at R * _size + C; null when displaying a Model. */
+    private int[] _grid;
+    /** For a GridModel, the tiles being animated, as of the previous
+     *  board. */
+    private final TileEvents _moves = new TileEvents();
+    /** For a GridModel, events ending at the squares that bloom. */
+    private final TileEvents _blooms = new TileEvents();
+    /** True while the tiles in _moves are being animated. */
+    private boolean _animatingMoves;
+
     /** Distance tiles have moved toward their next positions, in units of
      *  rows and columns. */
     private float _distMoved;
     /** Amount to add to sides of tiles in _bloomingTiles. */
     private int _bloom;
 
+    /** Values displayed at rest, indexed as _grid, in either mode. */
+    private final int[] _shown;
+    /** Region to repaint at the next frame; empty if none. */
+    private final Rectangle _dirty = new Rectangle();
+    /** Clip of the paint in progress (null for none). */
+    private Rectangle _clip;
+    /** Scratch rectangle for tile bounds. */
+    private final Rectangle _tileRect = new Rectangle();
+
+    /** Image of the empty board. */
+    private BufferedImage _background;
+    /** Images of tiles, by value. */
+    private final HashMap<Integer, BufferedImage> _tileImages = new HashMap<>();
+    /** Device pixels per unit of the images. */
+    private double _imageScale;
+
+    /** Least time between animation frames (milliseconds). */
+    private int _frameMillis = TICK;
+    /** Number of paints, and their total and longest times. */
+    private long _paints, _paintNanos, _maxPaintNanos;
+
     /** Number of rows and of columns. */
     private final int _size;
 
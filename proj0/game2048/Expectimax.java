@@ -0,0 +1,219 @@
+package game2048;
+
+import java.util.SplittableRandom;
+
+/** A MovePolicy that searches a fixed number of moves ahead, taking the
+ *  best tilt at each of its own turns and the probability-weighted average
+ *  over every possible new tile at each of the game's turns.
+ *
+ *  Leaves of the search are scored by a heuristic that rewards empty
+ *  squares, possible merges, and rows and columns whose values increase
+ *  or decrease steadily. Like the tilts themselves, the heuristic is
+ *  precomputed for every 16-bit line of a BitBoard, so scoring a position
+ *  costs eight lookups. Chance nodes whose probability of being reached
+ *  falls below MIN_PROBABILITY are scored without further search.
+ */
+public class Expectimax implements MovePolicy {
+
+    /** Probability that a new tile is a 2 (rather than a 4). */
+    static final double PROB_OF_2 = Main.TILE2_PROBABILITY;
+
+    /** Chance nodes less likely than this are treated as leaves. */
+    static final double MIN_PROBABILITY = 1e-4;
+
+    /* Heuristic weights. */
+    private static final double LOST_PENALTY = 200000;
+    private static final double MONOTONICITY_POWER = 4;
+    private static final double MONOTONICITY_WEIGHT = 47;
+    private static final double SUM_POWER = 3.5;
+    private static final double SUM_WEIGHT = 11;
+    private static final double MERGES_WEIGHT = 700;
+    private static final double EMPTY_WEIGHT = 270;
+
+    /** LINE_HEURISTIC[L] is the heuristic value of line L of a BitBoard. */
+    private static final float[] LINE_HEURISTIC = new float[1 << 16];
+
+    static {
+        int[] v = new int[BitBoard.SIZE];
+        for (int line = 0; line < 1 << 16; line += 1) {
+            for (int i = 0; i < v.length; i += 1) {
+                v[i] = (line >> (4 * i)) & 0xF;
+            }
+            double sum = 0;
+            int empty = 0;
+            int merges = 0;
+            int prev = 0;
+            int run = 0;
+            for (int x : v) {
+                sum += Math.pow(x, SUM_POWER);
+                if (x == 0) {
+                    empty += 1;
+                } else {
+                    if (prev == x) {
+                        run += 1;
+                    } else if (run > 0) {
+                        merges += 1 + run;
+                        run = 0;
+                    }
+                    prev = x;
+                }
+            }
+            if (run > 0) {
+                merges += 1 + run;
+            }
+            double monoLeft = 0, monoRight = 0;
+            for (int i = 1; i < v.length; i += 1) {
+                double a = Math.pow(v[i - 1], MONOTONICITY_POWER);
+                double b = Math.pow(v[i], MONOTONICITY_POWER);
+                if (v[i - 1] > v[i]) {
+                    monoLeft += a - b;
+                } else {
+                    monoRight += b - a;
+                }
+            }
+            LINE_HEURISTIC[line] = (float) (LOST_PENALTY / BitBoard.SIZE
+                + EMPTY_WEIGHT * empty + MERGES_WEIGHT * merges
+                - MONOTONICITY_WEIGHT * Math.min(monoLeft, monoRight)
+                - SUM_WEIGHT * sum);
+        }
+    }
+
+    /** A policy searching DEPTH >= 1 of its own moves ahead. */
+    public Expectimax(int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("depth must be at least 1");
+        }
+        _depth = depth;
+        _table = null;
+    }
+
+    /** A search DEPTH >= 1 moves deep that caches chance nodes in TABLE
+     *  (if non-null), with no time limit. */
+    Expectimax(int depth, TranspositionTable table) {
+        this(depth);
+        _table = table;
+    }
+
+    /** A search DEPTH >= 1 moves deep that caches chance nodes in TABLE
+     *  (if non-null) and gives up with TimeUp once System.nanoTime()
+     *  passes DEADLINE. */
+    Expectimax(int depth, TranspositionTable table, long deadline) {
+        this(depth, table);
+        _timed = true;
+        _deadline = deadline;
+    }
+
+    /** Thrown when a search passes its deadline. */
+    static class TimeUp extends RuntimeException {
+        /** Version of the serialized form. */
+        private static final long serialVersionUID = 1L;
+
+        TimeUp() {
+            super(null, null, false, false);
+        }
+    }
+
+    /** Returns the number of moves searched ahead. */
+    public int depth() {
+        return _depth;
+    }
+
+    /** Returns the number of positions evaluated since construction. */
+    public long nodes() {
+        return _nodes;
+    }
+
+    @Override
+    public Side choose(long board, SplittableRandom random) {
+        Side best = null;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (Side side : Side.values()) {
+            long next = BitBoard.tilt(board, side);
+            if (next == board) {
+                continue;
+            }
+            double value = chance(next, _depth - 1, 1.0);
+            if (value > bestValue) {
+                bestValue = value;
+                best = side;
+            }
+        }
+        return best;
+    }
+
+    /** Returns the heuristic value of BOARD. */
+    static double heuristic(long board) {
+        long t = BitBoard.transpose(board);
+        return LINE_HEURISTIC[(int) (board & 0xFFFF)]
+            + LINE_HEURISTIC[(int) ((board >>> 16) & 0xFFFF)]
+            + LINE_HEURISTIC[(int) ((board >>> 32) & 0xFFFF)]
+            + LINE_HEURISTIC[(int) (board >>> 48)]
+            + LINE_HEURISTIC[(int) (t & 0xFFFF)]
+            + LINE_HEURISTIC[(int) ((t >>> 16) & 0xFFFF)]
+            + LINE_HEURISTIC[(int) ((t >>> 32) & 0xFFFF)]
+            + LINE_HEURISTIC[(int) (t >>> 48)];
+    }
+
+    /** Returns the expected value of BOARD just before a new tile is
+     *  added, searching DEPTH more moves. PROB is the probability of
+     *  reaching BOARD from the root. */
+    double chance(long board, int depth, double prob) {
+        _nodes += 1;
+        if (_timed && (_nodes & 0xFFF) == 0 && System.nanoTime() - _deadline > 0) {
+            throw new TimeUp();
+        }
+        if (depth <= 0 || prob < MIN_PROBABILITY) {
+            return heuristic(board);
+        }
+        int empty = BitBoard.emptyCount(board);
+        if (empty == 0) {
+            return heuristic(board);
+        }
+        if (_table != null && depth > 1) {
+            double cached = _table.get(board, depth);
+            if (!Double.isNaN(cached)) {
+                return cached;
+            }
+        }
+        double cellProb = prob / empty;
+        double total = 0;
+        for (int shift = 0; shift < 64; shift += 4) {
+            if (((board >>> shift) & 0xF) != 0) {
+                continue;
+            }
+            total += PROB_OF_2 * max(board | 1L << shift, depth, cellProb * PROB_OF_2);
+            total += (1 - PROB_OF_2)
+                * max(board | 2L << shift, depth, cellProb * (1 - PROB_OF_2));
+        }
+        double value = total / empty;
+        if (_table != null && depth > 1) {
+            _table.put(board, depth, value);
+        }
+        return value;
+    }
+
+    /** Returns the value of BOARD when it is our turn to move, searching
+     *  DEPTH more moves. PROB is the probability of reaching BOARD. */
+    double max(long board, int depth, double prob) {
+        _nodes += 1;
+        double best = 0;
+        for (Side side : Side.values()) {
+            long next = BitBoard.tilt(board, side);
+            if (next != board) {
+                best = Math.max(best, chance(next, depth - 1, prob));
+            }
+        }
+        return best;
+    }
+
+    /** Number of moves searched ahead. */
+    private final int _depth;
+    /** Cache of chance node values, or null. */
+    private TranspositionTable _table;
+    /** True iff the search has a deadline. */
+    private boolean _timed;
+    /** System.nanoTime() after which the search gives up, if _timed. */
+    private long _deadline;
+    /** Positions evaluated so far. */
+    private long _nodes;
+}
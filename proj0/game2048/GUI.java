@@ -6,7 +6,7 @@ import ucb.gui2.LayoutSpec;
 import java.util.Observable;
 import java.util.Observer;
 
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.LinkedTransferQueue;
 
 import java.awt.event.KeyEvent;
 
@@ -19,8 +19,9 @@ class GUI extends TopLevel implements Observer {
     /** Minimum size of board in pixels. */
     private static final int MIN_SIZE = 500;
 
-    /** A new window with given TITLE providing a view of MODEL. */
-    GUI(String title, Model model) {
+    /** A new window with given TITLE providing a view of MODEL, which is
+     *  a Model or a GridModel. */
+    GUI(String title, GameState model) {
         super(title, true);
         addMenuButton("Game->New", this::newGame);
         addMenuButton("Game->Quit", this::quit);
@@ -44,20 +45,39 @@ class GUI extends TopLevel implements Observer {
 
     /** Response to "Quit" button click. */
     public void quit(String dummy) {
-        _pendingKeys.offer("Quit");
+        queueCommand("Quit");
         _widget.requestFocusInWindow();
     }
 
     /** Response to "New Game" button click. */
     public void newGame(String dummy) {
-        _pendingKeys.offer("New Game");
+        queueCommand("New Game");
         _widget.requestFocusInWindow();
     }
 
     /** Respond to the user pressing key E by queuing the key on our
-     *  queue of pending keys.*/
+     *  queue of pending keys, if it is an arrow key. Other keys do
+     *  nothing in the game, so they are dropped here rather than being
+     *  queued only to be read and ignored. */
     public void keyPressed(String unused, KeyEvent e) {
-        _pendingKeys.offer(e.getKeyText(e.getKeyCode()));
+        switch (e.getKeyCode()) {
+            case KeyEvent.VK_UP: case KeyEvent.VK_DOWN:
+            case KeyEvent.VK_LEFT: case KeyEvent.VK_RIGHT:
+                _pendingKeys.offer(e.getKeyText(e.getKeyCode()));
+                break;
+            default:
+                break;
+        }
+    }
+
+    /** Queue the menu command COMMAND, unless it is the same as the last
+     *  command queued and that has not been read yet (so that repeated
+     *  clicks count once). */
+    private synchronized void queueCommand(String command) {
+        if (!command.equals(_lastCommand) || !_pendingKeys.contains(command)) {
+            _pendingKeys.offer(command);
+            _lastCommand = command;
+        }
     }
 
     /** Return the next pending event, waiting for it as necessary.
@@ -72,6 +92,21 @@ class GUI extends TopLevel implements Observer {
         }
     }
 
+    /** Return true iff readKey() would return without waiting. */
+    boolean keyReady() {
+        return !_pendingKeys.isEmpty();
+    }
+
+    /** Animate the board at no more than FPS frames per second. */
+    void setFrameRate(int fps) {
+        _widget.setFrameRate(fps);
+    }
+
+    /** Return a summary of the time taken painting the board. */
+    String paintTimes() {
+        return _widget.paintTimes();
+    }
+
     /** Set the current score being displayed to SCORE and the current
      *  maximum score to MAXSCORE. */
     public void setScore(int score, int maxScore) {
@@ -84,17 +119,26 @@ class GUI extends TopLevel implements Observer {
      *  Observer of the model. */
     @Override
     public void update(Observable model, Object arg) {
-        _widget.update(_model);
+        boolean animate = !Game.BATCH.equals(arg);
+        if (_model instanceof GridModel) {
+            _widget.update((GridModel) _model, animate);
+        } else {
+            _widget.update((Model) _model, animate);
+        }
         setScore(_model.score(), _model.maxScore());
     }
 
     /** The board widget. */
     private BoardWidget _widget;
     /** The game model being viewed. */
-    private Model _model;
-
-    /** Queue of pending key presses. */
-    private ArrayBlockingQueue<String> _pendingKeys =
-        new ArrayBlockingQueue<>(5);
+    private GameState _model;
+
+    /** Queue of pending key presses. Unbounded and lock-free, so that
+     *  the event thread never blocks or drops a key however far the game
+     *  falls behind. */
+    private LinkedTransferQueue<String> _pendingKeys =
+        new LinkedTransferQueue<>();
+    /** The last menu command queued. */
+    private String _lastCommand;
 
 }
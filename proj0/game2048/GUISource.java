@@ -1,7 +1,5 @@
 package game2048;
 
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.Random;
 
@@ -10,23 +8,27 @@ import java.util.Random;
  */
 class GUISource implements InputSource {
 
-    /** Provides input from SOURCE, logging it iff LOG. Use RANDOMSOURCE to
-     *  select random tiles having value 2 with probability PROBOF2. */
+    /** Provides input from SOURCE for games on SIZE x SIZE boards,
+     *  logging it to the file LOGFILENAME (in the format of ReplayWriter)
+     *  unless it is null. Use RANDOMSOURCE to select random tiles having
+     *  value 2 with probability PROBOF2. */
     GUISource(GUI source, Random randomSource, double probOf2,
-              String logFileName) {
+              int size, String logFileName) {
         _source = source;
         _randomSource = randomSource;
         _probOf2 = probOf2;
 
         if (logFileName != null) {
-
-            File logFile = new File(logFileName);
             try {
-                _logFileWriter = new FileWriter(logFile);
+                _log = new ReplayWriter(logFileName, size);
             } catch (IOException e) {
-                System.err.println("Error: no such file " + logFileName);
+                System.err.println("Error: cannot create log file "
+                                   + logFileName);
                 System.exit(1);
             }
+            /* Main ends with System.exit, so make sure the tail of the log
+             * reaches the file however the program stops. */
+            Runtime.getRuntime().addShutdownHook(new Thread(this::closeLog));
         }
     }
 
@@ -51,20 +53,43 @@ class GUISource implements InputSource {
                 break;
         }
 
-        String logLine = String.format("K %s%n", command);
-
-        if (_logFileWriter != null) {
-            System.out.print(logLine);
+        if (_log != null) {
             try {
-                _logFileWriter.write(logLine);
+                switch (command) {
+                    case "Up":
+                        _log.move(Side.NORTH);
+                        break;
+                    case "Right":
+                        _log.move(Side.EAST);
+                        break;
+                    case "Down":
+                        _log.move(Side.SOUTH);
+                        break;
+                    case "Left":
+                        _log.move(Side.WEST);
+                        break;
+                    case "New Game":
+                        _log.newGame();
+                        break;
+                    case "Quit":
+                        _log.quit();
+                        closeLog();
+                        break;
+                    default:
+                        break;
+                }
             } catch (IOException e) {
-                System.err.print("Error: cannot write to log file");
-                System.exit(1);
+                logError();
             }
         }
         return command;
     }
 
+    @Override
+    public boolean ready() {
+        return _source.keyReady();
+    }
+
     @Override
      /** Return a randomly positioned tile with either value of 2 with 
       * probability _probOf2 or a value of 4 with probability 1 - _probOf2 in a
@@ -72,19 +97,41 @@ class GUISource implements InputSource {
     public Tile getNewTile(int size) {
         int c = _randomSource.nextInt(size), r = _randomSource.nextInt(size);
         int v = _randomSource.nextDouble() <= _probOf2 ? 2 : 4;
-        if (_logFileWriter != null) {
-            System.out.printf("T %d %d %d%n", v, c, r);
+        if (_log != null) {
+            try {
+                _log.spawn(v, c, r);
+            } catch (IOException e) {
+                logError();
+            }
         }
         return Tile.create(v, c, r);
     }
 
+    /** Write out and close the log, if it is still open. */
+    private synchronized void closeLog() {
+        if (_log != null) {
+            try {
+                _log.close();
+            } catch (IOException e) {
+                System.err.println("Error: cannot write to log file");
+            }
+            _log = null;
+        }
+    }
+
+    /** Report a failure to write the log and exit. */
+    private void logError() {
+        System.err.println("Error: cannot write to log file");
+        System.exit(1);
+    }
+
     /** Input source. */
     private GUI _source;
     /** Random source for Tiles. */
     private Random _randomSource;
     /** Probabilty that value of new Tile is 2 rather than 4. */
     private double _probOf2;
-    /** The FileWriter to log inputs to (null if no logging required). */
-    private FileWriter _logFileWriter;
+    /** The log of inputs (null if no logging required). */
+    private ReplayWriter _log;
 
 }
@@ -8,12 +8,25 @@ public class Game {
 
     /** Controller for a game represented by MODEL, using SOURCE as the
      *  the source of key inputs and random Tiles. */
-    public Game(Model model, InputSource source) {
+    public Game(GameState model, InputSource source) {
         _model = model;
         _source = source;
         _playing = true;
     }
 
+    /** Observer argument for a notification covering several tilts,
+     *  which viewers should show without animating. */
+    static final String BATCH = "Batch";
+
+    /** Turn batched moves on iff ON. While on, a tilt read when more
+     *  input is ready is applied (with its new tile) without notifying
+     *  observers, so that a burst of queued moves is played back-to-back
+     *  and shown by a single notification once input runs out. The tiles
+     *  requested and keys read are the same either way. Off by default. */
+    void setBatching(boolean on) {
+        _batching = on;
+    }
+
     /** Return true iff we have not received a Quit command. */
     boolean playing() {
         return _playing;
@@ -25,27 +38,37 @@ public class Game {
     void playGame() {
         _model.clear();
         _model.addTile(getValidNewTile());
+        _batched = 0;
         while (_playing) {
             if (!_model.gameOver()) {
                 _model.addTile(getValidNewTile());
-                _model.notifyObservers();
+                if (_batched == 0) {
+                    _model.notifyObservers();
+                }
             }
 
             boolean moved;
             moved = false;
             while (!moved) {
-                String cmnd = _source.getKey();
+                String cmnd = nextKey();
                 switch (cmnd) {
                     case "Quit":
                         _playing = false;
                         return;
                     case "New Game":
+                        flushBatch();
                         return;
                     case "Up": case "Down": case "Left": case "Right":
                     case "\u2190": case "\u2191": case "\u2192": case "\u2193":
                         if (!_model.gameOver() && _model.tilt(keyToSide(cmnd))) {
-                            _model.notifyObservers(cmnd);
                             moved = true;
+                            if (_batching && _source.ready()) {
+                                _batched += 1;
+                            } else if (_batched > 0) {
+                                flushBatch();
+                            } else {
+                                _model.notifyObservers(cmnd);
+                            }
                         }
                         break;
                     default:
@@ -56,6 +79,24 @@ public class Game {
         }
     }
 
+    /** Return the next command from our source, first notifying observers
+     *  of any batched tilts if it would have to wait for one. */
+    private String nextKey() {
+        if (_batched > 0 && !_source.ready()) {
+            flushBatch();
+        }
+        return _source.getKey();
+    }
+
+    /** Notify observers of the tilts (and new tiles) applied since the
+     *  last notification, if any. */
+    private void flushBatch() {
+        if (_batched > 0) {
+            _batched = 0;
+            _model.notifyObservers(BATCH);
+        }
+    }
+
     /** Return the side indicated by KEY ("Up", "Down", "Left",
      *  or "Right"). */
     private Side keyToSide(String key) {
@@ -79,14 +120,14 @@ public class Game {
     private Tile getValidNewTile() {
         while (true) {
             Tile tile = _source.getNewTile(_model.size());
-            if (_model.tile(tile.col(), tile.row()) == null) {
+            if (!_model.occupied(tile.col(), tile.row())) {
                 return tile;
             }
         }
     }
 
     /** The playing board. */
-    private Model _model;
+    private GameState _model;
 
     /** Input source from standard input. */
     private InputSource _source;
@@ -94,4 +135,9 @@ public class Game {
     /** True while user is still willing to play. */
     private boolean _playing;
 
+    /** True iff moves are batched (see setBatching). */
+    private boolean _batching;
+    /** Number of tilts applied since observers were last notified. */
+    private int _batched;
+
 }
@@ -0,0 +1,46 @@
+package game2048;
+
+import java.util.Observer;
+
+/** The operations Game and GUI need from the state of a game of 2048,
+ *  shared by Model and GridModel.
+ *  @see Model
+ */
+interface GameState {
+
+    /** Return the number of squares on one side of the board. */
+    int size();
+
+    /** Return true iff there is a tile at (COL, ROW). */
+    boolean occupied(int col, int row);
+
+    /** Return the current score. */
+    int score();
+
+    /** Return the current maximum game score (updated at end of game). */
+    int maxScore();
+
+    /** Return true iff the game is over. */
+    boolean gameOver();
+
+    /** Clear the board to empty and reset the score. */
+    void clear();
+
+    /** Add TILE to the board. There must be no tile at its position. */
+    void addTile(Tile tile);
+
+    /** Tilt the board toward SIDE. Return true iff this changes the
+     *  board. */
+    boolean tilt(Side side);
+
+    /* The following are implemented by java.util.Observable. */
+
+    /** Register OBSERVER to be told of changes. */
+    void addObserver(Observer observer);
+
+    /** Tell observers of any changes since the last notification. */
+    void notifyObservers();
+
+    /** Tell observers of any changes, passing them ARG. */
+    void notifyObservers(Object arg);
+}
@@ -0,0 +1,230 @@
+package game2048;
+
+import java.util.Arrays;
+import java.util.Formatter;
+import java.util.Observable;
+
+/** The state of a game of 2048, kept as tile values in a single int
+ *  array rather than as Tile objects.
+ *
+ *  GridModel follows exactly the same rules as Model (see Model.tilt),
+ *  but tilting it allocates nothing. When recording is on, each change
+ *  also appends TileEvents describing how tiles moved, merged and
+ *  appeared, which is what BoardWidget needs to animate the change in
+ *  place of Model's chains of Tile.next links. The event buffer belongs
+ *  to the model and is reused; whoever consumes the events (normally
+ *  BoardWidget.update) clears it afterward.
+ */
+public class GridModel extends Observable implements GameState {
+
+    /** A new game on a board of SIZE x SIZE squares with no pieces and
+     *  score 0. */
+    public GridModel(int size) {
+        _size = size;
+        _cells = new int[size * size];
+        _emptyCount = size * size;
+        _tiltOrder = TiltOrder.forSize(size);
+    }
+
+    /** A new game whose tiles have the values in RAWVALUES (0 if none),
+     *  in the layout taken by the Model constructor. */
+    public GridModel(int[][] rawValues, int score, int maxScore) {
+        this(rawValues.length);
+        for (int col = 0; col < _size; col += 1) {
+            for (int row = 0; row < _size; row += 1) {
+                int v = rawValues[_size - 1 - row][col];
+                if (v != 0) {
+                    _cells[index(col, row)] = v;
+                    _emptyCount -= 1;
+                    _maxValue = Math.max(_maxValue, v);
+                }
+            }
+        }
+        _score = score;
+        _maxScore = maxScore;
+    }
+
+    @Override
+    public int size() {
+        return _size;
+    }
+
+    /** Return the value of the tile at (COL, ROW), or 0 if there is none. */
+    public int value(int col, int row) {
+        return _cells[index(col, row)];
+    }
+
+    @Override
+    public boolean occupied(int col, int row) {
+        return _cells[index(col, row)] != 0;
+    }
+
+    @Override
+    public int score() {
+        return _score;
+    }
+
+    @Override
+    public int maxScore() {
+        return _maxScore;
+    }
+
+    /** Return true iff the game is over (there are no moves, or there is
+     *  a tile with value Model.MAX_PIECE on the board). */
+    @Override
+    public boolean gameOver() {
+        boolean over = _maxValue >= Model.MAX_PIECE
+            || (_emptyCount == 0 && !adjacentPairExists());
+        if (over) {
+            _maxScore = Math.max(_score, _maxScore);
+        }
+        return over;
+    }
+
+    /** Turn recording of TileEvents on iff ON. Off by default. */
+    public void setRecording(boolean on) {
+        _recording = on;
+    }
+
+    /** Return the buffer of events recorded since it was last cleared. */
+    public TileEvents events() {
+        return _events;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(_cells, 0);
+        _score = 0;
+        _emptyCount = _cells.length;
+        _maxValue = 0;
+        setChanged();
+    }
+
+    /** Add TILE to the board. There must be no tile at its position. */
+    @Override
+    public void addTile(Tile tile) {
+        addTile(tile.value(), tile.col(), tile.row());
+    }
+
+    /** Add a tile of value VALUE at (COL, ROW), which must be empty. */
+    public void addTile(int value, int col, int row) {
+        int i = index(col, row);
+        assert _cells[i] == 0;
+        _cells[i] = value;
+        _emptyCount -= 1;
+        _maxValue = Math.max(_maxValue, value);
+        if (_recording) {
+            _events.add(TileEvents.SPAWN, col, row, col, row, value);
+        }
+        setChanged();
+    }
+
+    /** Tilt the board toward SIDE, following the rules in Model.tilt's
+     *  comment. Return true iff this changes the board. */
+    @Override
+    public boolean tilt(Side side) {
+        boolean changed = false;
+        int[] order = _tiltOrder[side.ordinal()];
+        for (int base = 0; base < order.length; base += _size) {
+            /* Position along the line of the next square to fill, and the
+             * square that the next tile may merge into, if any. */
+            int fill = base;
+            int mergeable = -1;
+            for (int k = base; k < base + _size; k += 1) {
+                int from = order[k];
+                int v = _cells[from];
+                if (v == 0) {
+                    continue;
+                }
+                if (mergeable >= 0 && _cells[mergeable] == v) {
+                    _cells[mergeable] = 2 * v;
+                    _cells[from] = 0;
+                    _score += 2 * v;
+                    _emptyCount += 1;
+                    _maxValue = Math.max(_maxValue, 2 * v);
+                    record(TileEvents.MERGE, from, mergeable, v);
+                    mergeable = -1;
+                    changed = true;
+                } else {
+                    int to = order[fill];
+                    if (to != from) {
+                        _cells[to] = v;
+                        _cells[from] = 0;
+                        changed = true;
+                    }
+                    record(TileEvents.MOVE, from, to, v);
+                    mergeable = to;
+                    fill += 1;
+                }
+            }
+        }
+        if (changed) {
+            setChanged();
+        }
+        return changed;
+    }
+
+    /** Record an event of KIND for a tile of VALUE moving from the square
+     *  at index FROM to the one at index TO, if recording. */
+    private void record(int kind, int from, int to, int value) {
+        if (_recording) {
+            _events.add(kind, from % _size, from / _size, to % _size, to / _size, value);
+        }
+    }
+
+    /** Return true iff two adjacent squares hold equal tiles. */
+    private boolean adjacentPairExists() {
+        for (int row = 0; row < _size; row += 1) {
+            for (int col = 0; col < _size; col += 1) {
+                int v = _cells[index(col, row)];
+                if (v != 0
+                    && ((col + 1 < _size && _cells[index(col + 1, row)] == v)
+                        || (row + 1 < _size && _cells[index(col, row + 1)] == v))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** Return the index in _cells of (COL, ROW). */
+    private int index(int col, int row) {
+        return row * _size + col;
+    }
+
+    @Override
+    public String toString() {
+        Formatter out = new Formatter();
+        out.format("%n[%n");
+        for (int row = _size - 1; row >= 0; row -= 1) {
+            for (int col = 0; col < _size; col += 1) {
+                if (value(col, row) == 0) {
+                    out.format("|    ");
+                } else {
+                    out.format("|%4d", value(col, row));
+                }
+            }
+            out.format("|%n");
+        }
+        String over = gameOver() ? "over" : "not over";
+        out.format("] %d (max: %d) (game is %s) %n", score(), maxScore(), over);
+        return out.toString();
+    }
+
+    /** Squares on a side. */
+    private final int _size;
+    /** Tile values (0 for none), the square at (C, R) at R * _size + C. */
+    private final int[] _cells;
+    /** The TiltOrder for _size, indexed by Side.ordinal(). */
+    private final int[][] _tiltOrder;
+    /** Number of zeros in _cells. */
+    private int _emptyCount;
+    /** Largest value in _cells. */
+    private int _maxValue;
+    /** Current and maximum scores. */
+    private int _score, _maxScore;
+    /** True iff changes are being recorded in _events. */
+    private boolean _recording;
+    /** Recorded changes. */
+    private final TileEvents _events = new TileEvents();
+}
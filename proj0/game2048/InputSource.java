@@ -8,6 +8,12 @@ interface InputSource {
     /** Returns one command string. */
     String getKey();
 
+    /** Returns true iff getKey() would return without waiting for input.
+     *  By default, false. */
+    default boolean ready() {
+        return false;
+    }
+
     /** Returns a candidate Tile whose row and column is in the range
      *  0 .. SIZE-1.  */
     Tile getNewTile(int size);
@@ -16,14 +16,21 @@ public class Main {
 
     /** The main program.  ARGS may contain the options --seed=NUM,
      *  (random seed); --log (record moves and random tiles
-     *  selected.). */
+     *  selected in a binary log, which Replayer replays); --grid (keep
+     *  the board in a GridModel, which does not allocate Tiles when
+     *  tilting, rather than a Model); --fps=NUM (animate at no more than
+     *  NUM frames per second); --paint-times (report the time spent
+     *  painting the board on exit); --batch (play moves queued while the
+     *  board is being drawn back-to-back, showing only their result). */
     public static void main(String... args) {
         CommandArgs options =
-            new CommandArgs("--seed=(\\d+) --log=(.+)",
+            new CommandArgs("--seed=(\\d+) --log=(.+) --grid --fps=(\\d+) "
+                            + "--paint-times --batch",
                             args);
         if (!options.ok()) {
             System.err.println("Usage: java game2048.Main [ --seed=NUM ] "
-                               + "[ --log=LOG_FILE ]");
+                               + "[ --log=LOG_FILE ] [ --grid ] [ --fps=NUM ] "
+                               + "[ --paint-times ] [ --batch ]");
             System.exit(1);
         }
 
@@ -32,19 +39,30 @@ public class Main {
             gen.setSeed(options.getLong("--seed"));
         }
 
-        Model model = new Model(BOARD_SIZE);
+        GameState model;
+        if (options.contains("--grid")) {
+            GridModel grid = new GridModel(BOARD_SIZE);
+            grid.setRecording(true);
+            model = grid;
+        } else {
+            model = new Model(BOARD_SIZE);
+        }
 
         GUI gui;
 
         gui = new GUI("2048 61B", model);
+        if (options.contains("--fps")) {
+            gui.setFrameRate(options.getInt("--fps"));
+        }
         gui.display(true);
 
         InputSource inp;
 
-        inp = new GUISource(gui, gen, TILE2_PROBABILITY,
+        inp = new GUISource(gui, gen, TILE2_PROBABILITY, BOARD_SIZE,
                             options.getFirst("--log"));
 
         Game game = new Game(model, inp);
+        game.setBatching(options.contains("--batch"));
 
         try {
             while (game.playing()) {
@@ -55,6 +73,9 @@ public class Main {
             System.exit(1);
         }
 
+        if (options.contains("--paint-times")) {
+            System.err.println(gui.paintTimes());
+        }
         System.exit(0);
     }
 
@@ -1,5 +1,6 @@
 package game2048;
 
+import java.util.Arrays;
 import java.util.Formatter;
 import java.util.Observable;
 
@@ -7,9 +8,11 @@ import java.util.Observable;
 /** The state of a game of 2048.
  *  @author TODO: Huang Yuhao
  */
-public class Model extends Observable {
+public class Model extends Observable implements GameState {
     /** Current contents of the board. */
     private Board board;
+    /** The board's TiltOrder, indexed by Side.ordinal(). */
+    private int[][] tiltOrder;
     /** Current score. */
     private int score;
     /** Maximum score so far.  Updated when game ends. */
@@ -17,6 +20,17 @@ public class Model extends Observable {
     /** True iff game is ended. */
     private boolean gameOver;
 
+    /* The following are kept up to date as tiles are added, moved and
+     * merged, so that checking for the end of the game never has to
+     * rescan the board. */
+    /** Number of empty squares. */
+    private int emptyCount;
+    /** Largest tile value on the board (0 if none). */
+    private int maxValue;
+    /** Number of pairs of horizontally or vertically adjacent tiles with
+     *  equal values. */
+    private int adjacentPairs;
+
     /* Coordinate System: column C, row R of the board (where row 0,
      * column 0 is the lower-left corner of the board) will correspond
      * to board.tile(c, r).  Be careful! It works like (x, y) coordinates.
@@ -29,8 +43,10 @@ public class Model extends Observable {
      *  and score 0. */
     public Model(int size) {
         board = new Board(size);
+        tiltOrder = TiltOrder.forSize(size);
         score = maxScore = 0;
         gameOver = false;
+        recount();
     }
 
     /** A new 2048 game where RAWVALUES contain the values of the tiles
@@ -39,9 +55,11 @@ public class Model extends Observable {
     public Model(int[][] rawValues, int score, int maxScore, boolean gameOver) {
         int size = rawValues.length;
         board = new Board(rawValues, score);
+        tiltOrder = TiltOrder.forSize(size);
         this.score = score;
         this.maxScore = maxScore;
         this.gameOver = gameOver;
+        recount();
     }
 
     /** Return the current Tile at (COL, ROW), where 0 <= ROW < size(),
@@ -52,6 +70,11 @@ public class Model extends Observable {
         return board.tile(col, row);
     }
 
+    /** Return true iff there is a tile at (COL, ROW). */
+    public boolean occupied(int col, int row) {
+        return board.tile(col, row) != null;
+    }
+
     /** Return the number of squares on one side of the board.
      *  Used for testing. Should be deprecated and removed. */
     public int size() {
@@ -83,12 +106,16 @@ public class Model extends Observable {
         score = 0;
         gameOver = false;
         board.clear();
+        recount();
         setChanged();
     }
 
     /** Add TILE to the board. There must be no Tile currently at the
      *  same position. */
     public void addTile(Tile tile) {
+        emptyCount -= 1;
+        maxValue = Math.max(maxValue, tile.value());
+        adjacentPairs += equalNeighbors(tile.row() * size() + tile.col(), tile.value(), -1);
         board.addTile(tile);
         checkGameOver();
         setChanged();
@@ -110,63 +137,58 @@ public class Model extends Observable {
         boolean changed;
         changed = false;
 
-        // TODO: Modify this.board (and perhaps this.score) to account
-        // for the tilt to the Side SIDE. If the board changed, set the
-        // changed local variable to true.
         int size = board.size();
-
-        // 1. 设置视角，将当前方向设置为“北”以便统一处理
-        board.setViewingPerspective(side);
-
-        // 逻辑处理部分：遍历每一列
-        for (int col = 0; col < size; col++) {
-            // 此数组或数据结构用于记录当前列中哪些位置的瓷砖已经合并过，避免一次移动中多次合并:cite[3]。
-            boolean[] merged = new boolean[size]; // 初始化为false
-
-            // 遍历当前列从“上”（移动方向）向“下”的每一行（除了最边上的一行）
-            // 通常从离移动方向最远的瓷砖开始处理
-            for (int row = size - 1; row >= 0; row--) { // 从倒数第二行开始向上遍历
-                Tile t = board.tile(col, row);
+        // 每个方向的遍历顺序是预先算好的排列：order[line * size + k] 是
+        // 第 line 条线上离 SIDE 第 k 近的格子的下标，不再经过视角变换。
+        int[] order = tiltOrder[side.ordinal()];
+        // 记录当前线中哪些位置的瓷砖已经合并过，避免一次移动中多次合并。
+        boolean[] merged = new boolean[size];
+
+        for (int line = 0; line < size; line++) {
+            int base = line * size;
+            Arrays.fill(merged, false);
+
+            // 从离移动方向最近的瓷砖开始处理
+            for (int k = 1; k < size; k++) {
+                int from = order[base + k];
+                Tile t = board.tileAt(from);
                 if (t == null) continue; // 当前位置是空瓷砖，跳过
 
-                int targetRow = row;
-                // 寻找当前瓷砖可以移动到的目标行
-                while (targetRow + 1 < size) {
-                    Tile nextTile = board.tile(col, targetRow + 1);
+                int target = k;
+                // 寻找当前瓷砖可以移动到的目标位置
+                while (target > 0) {
+                    Tile nextTile = board.tileAt(order[base + target - 1]);
                     if (nextTile == null) {
-                        // 下一个位置为空，可以继续向上移动
-                        targetRow++;
-                        changed = true;
+                        target--;
                     } else {
-                        // 下一个位置有瓷砖
-                        if (nextTile.value() == t.value() && !merged[targetRow + 1]) {
+                        if (nextTile.value() == t.value() && !merged[target - 1]) {
                             // 值相等且目标位置的瓷砖在本轮移动中尚未被合并，可以合并
-                            targetRow++;
-                            merged[targetRow] = true; // 标记该位置已合并
-                            break;
-                        } else {
-                            // 值不相等或不能合并，停止移动
-                            break;
+                            target--;
+                            merged[target] = true;
                         }
+                        break;
                     }
                 }
 
-                if (targetRow != row) {
-                    // 目标行和当前行不同，说明需要移动
-                    // 移动瓷砖（如果targetRow位置有瓷砖且值相等，则会合并）
-                    boolean moveResult = board.move(col, targetRow, t);
+                if (target != k) {
+                    changed = true;
+                    int to = order[base + target];
+                    adjacentPairs -= equalNeighbors(from, t.value(), -1);
+                    if (board.tileAt(to) != null) {
+                        adjacentPairs -= equalNeighbors(to, t.value(), from);
+                    }
+                    boolean moveResult = board.moveTo(to, t);
+                    int value = board.tileAt(to).value();
+                    adjacentPairs += equalNeighbors(to, value, -1);
                     if (moveResult) {
-                        changed = true;
-                        score += board.tile(col, targetRow).value();
-                        // 如果合并成功，可能会得分，这里分数由GUI处理
+                        score += value;
+                        emptyCount += 1;
+                        maxValue = Math.max(maxValue, value);
                     }
                 }
             }
         }
 
-        // 5. 恢复视角
-        board.setViewingPerspective(Side.NORTH);
-
         checkGameOver();
         if (changed) {
             setChanged();
@@ -178,7 +200,63 @@ public class Model extends Observable {
      *  appropriately.
      */
     private void checkGameOver() {
-        gameOver = checkGameOver(board);
+        gameOver = maxValue >= MAX_PIECE || (emptyCount == 0 && adjacentPairs == 0);
+        assert gameOver == checkGameOver(board);
+    }
+
+    /** Recomputes emptyCount, maxValue and adjacentPairs from scratch. */
+    private void recount() {
+        int size = board.size();
+        emptyCount = 0;
+        maxValue = 0;
+        adjacentPairs = 0;
+        for (int col = 0; col < size; col += 1) {
+            for (int row = 0; row < size; row += 1) {
+                Tile t = board.tile(col, row);
+                if (t == null) {
+                    emptyCount += 1;
+                    continue;
+                }
+                maxValue = Math.max(maxValue, t.value());
+                if (col + 1 < size && board.tile(col + 1, row) != null
+                    && board.tile(col + 1, row).value() == t.value()) {
+                    adjacentPairs += 1;
+                }
+                if (row + 1 < size && board.tile(col, row + 1) != null
+                    && board.tile(col, row + 1).value() == t.value()) {
+                    adjacentPairs += 1;
+                }
+            }
+        }
+    }
+
+    /** Returns the number of squares next to the one at INDEX (as for
+     *  Board.tileAt) holding a tile of value VALUE, not counting the
+     *  square at SKIP. */
+    private int equalNeighbors(int index, int value, int skip) {
+        int size = board.size();
+        int col = index % size;
+        int n = 0;
+        if (col > 0) {
+            n += equalAt(index - 1, value, skip);
+        }
+        if (col + 1 < size) {
+            n += equalAt(index + 1, value, skip);
+        }
+        if (index >= size) {
+            n += equalAt(index - size, value, skip);
+        }
+        if (index + size < size * size) {
+            n += equalAt(index + size, value, skip);
+        }
+        return n;
+    }
+
+    /** Returns 1 if the square at INDEX is not SKIP and holds a tile of
+     *  value VALUE, else 0. */
+    private int equalAt(int index, int value, int skip) {
+        Tile t = board.tileAt(index);
+        return index != skip && t != null && t.value() == value ? 1 : 0;
     }
 
     /** Determine whether game is over. */
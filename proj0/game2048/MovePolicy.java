@@ -0,0 +1,59 @@
+package game2048;
+
+import java.util.SplittableRandom;
+
+/** A strategy for choosing moves in a headless game on a BitBoard.
+ *  @see Simulator
+ */
+public interface MovePolicy {
+
+    /** Returns the side to tilt BOARD toward. BOARD has at least one
+     *  legal move, and the result must be one (a tilt that changes BOARD).
+     *  RANDOM is the caller's source of randomness; a policy that uses no
+     *  other source is deterministic for a given seed. */
+    Side choose(long board, SplittableRandom random);
+
+    /** Returns a policy that picks uniformly among the legal moves. The
+     *  legal moves are kept as a bit mask of Side ordinals, so choosing
+     *  allocates nothing. */
+    static MovePolicy random() {
+        Side[] sides = Side.values();
+        return (board, random) -> {
+            int legal = 0;
+            for (Side side : sides) {
+                if (BitBoard.tilt(board, side) != board) {
+                    legal |= 1 << side.ordinal();
+                }
+            }
+            for (int r = random.nextInt(Integer.bitCount(legal)); r > 0; r -= 1) {
+                legal &= legal - 1;
+            }
+            return sides[Integer.numberOfTrailingZeros(legal)];
+        };
+    }
+
+    /** Returns a policy that picks the legal move earning the most points,
+     *  breaking ties by the number of empty squares left, then randomly. */
+    static MovePolicy greedy() {
+        Side[] sides = Side.values();
+        return (board, random) -> {
+            Side best = null;
+            long bestKey = Long.MIN_VALUE;
+            int start = random.nextInt(sides.length);
+            for (int k = 0; k < sides.length; k += 1) {
+                Side side = sides[(start + k) % sides.length];
+                long next = BitBoard.tilt(board, side);
+                if (next == board) {
+                    continue;
+                }
+                long key = (long) BitBoard.tiltScore(board, side) << 8
+                    | BitBoard.emptyCount(next);
+                if (key > bestKey) {
+                    bestKey = key;
+                    best = side;
+                }
+            }
+            return best;
+        };
+    }
+}
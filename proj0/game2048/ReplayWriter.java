@@ -0,0 +1,101 @@
+package game2048;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/** Writes a compact binary log of games of 2048, for Replayer.
+ *
+ *  A log is a header followed by one record per event. The header is the
+ *  four bytes "2048", a version byte (VERSION), and the board size as a
+ *  varint. Each record starts with a code byte:
+ *  <ul>
+ *  <li> 0-3: a tilt toward the Side with that ordinal (NORTH, EAST, SOUTH,
+ *       WEST).
+ *  <li> SPAWN_2, SPAWN_4: a candidate new tile of value 2 or 4, followed
+ *       by the varint ROW * SIZE + COL of its square. As in Game, a
+ *       candidate landing on an occupied square is discarded on replay.
+ *  <li> NEW_GAME: the board was cleared for a new game.
+ *  <li> QUIT: the player quit; nothing follows.
+ *  </ul>
+ *  Varints are little-endian base 128, seven bits per byte, with the high
+ *  bit set on all but the last byte. A move is thus one byte and a spawn
+ *  two on boards of up to 128 squares. Output is buffered; it reaches the
+ *  underlying stream on flush() or close().
+ */
+public class ReplayWriter implements Closeable {
+
+    /** Format version written in the header. */
+    static final int VERSION = 1;
+    /** Header bytes preceding the version. */
+    static final byte[] MAGIC = { '2', '0', '4', '8' };
+
+    /** Record codes other than moves. */
+    static final int SPAWN_2 = 4, SPAWN_4 = 5, NEW_GAME = 6, QUIT = 7;
+
+    /** A writer of a log of games on SIZE x SIZE boards to OUT. */
+    public ReplayWriter(OutputStream out, int size) throws IOException {
+        _out = out instanceof BufferedOutputStream ? out
+            : new BufferedOutputStream(out, 1 << 16);
+        _size = size;
+        _out.write(MAGIC);
+        _out.write(VERSION);
+        writeVarint(size);
+    }
+
+    /** A writer of a log of games on SIZE x SIZE boards to the file
+     *  FILENAME. */
+    public ReplayWriter(String fileName, int size) throws IOException {
+        this(new FileOutputStream(fileName), size);
+    }
+
+    /** Record a tilt toward SIDE. */
+    public void move(Side side) throws IOException {
+        _out.write(side.ordinal());
+    }
+
+    /** Record a candidate new tile of VALUE (2 or 4) at (COL, ROW). */
+    public void spawn(int value, int col, int row) throws IOException {
+        if (value != 2 && value != 4) {
+            throw new IllegalArgumentException("new tiles must be 2 or 4, not " + value);
+        }
+        _out.write(value == 2 ? SPAWN_2 : SPAWN_4);
+        writeVarint(row * _size + col);
+    }
+
+    /** Record the start of a new game. */
+    public void newGame() throws IOException {
+        _out.write(NEW_GAME);
+    }
+
+    /** Record that the player quit. */
+    public void quit() throws IOException {
+        _out.write(QUIT);
+    }
+
+    /** Write any buffered records to the underlying stream. */
+    public void flush() throws IOException {
+        _out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        _out.close();
+    }
+
+    /** Write the non-negative integer N as a varint. */
+    private void writeVarint(int n) throws IOException {
+        while ((n & ~0x7F) != 0) {
+            _out.write((n & 0x7F) | 0x80);
+            n >>>= 7;
+        }
+        _out.write(n);
+    }
+
+    /** Destination of the log. */
+    private final OutputStream _out;
+    /** Board size. */
+    private final int _size;
+}
@@ -0,0 +1,298 @@
+package game2048;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/** Replays logs written by ReplayWriter without a GUI.
+ *
+ *  The games are played on a GridModel (with event recording off), which
+ *  applies each record exactly as Game.playGame would have: tilts are
+ *  ignored once the game is over, and new tiles landing on occupied
+ *  squares are discarded. Input is read through a private buffer a block
+ *  at a time, so replay runs at close to the speed of the disk.
+ */
+public class Replayer {
+
+    /** Receives each game as it ends. */
+    public interface Listener {
+        /** Called with the final position of a game, which lasted MOVES
+         *  tilts. MODEL is reused for the next game. */
+        void gameEnded(GridModel model, int moves);
+    }
+
+    /** A replayer reading a log from IN, whose header it reads now. */
+    public Replayer(InputStream in) throws IOException {
+        _in = in;
+        byte[] magic = new byte[ReplayWriter.MAGIC.length];
+        for (int i = 0; i < magic.length; i += 1) {
+            magic[i] = (byte) read();
+        }
+        if (!Arrays.equals(magic, ReplayWriter.MAGIC)) {
+            throw new IOException("not a 2048 replay log");
+        }
+        int version = read();
+        if (version != ReplayWriter.VERSION) {
+            throw new IOException("unsupported replay log version " + version);
+        }
+        _size = readVarint();
+        _model = new GridModel(_size);
+    }
+
+    /** Return the board size of the log. */
+    public int size() {
+        return _size;
+    }
+
+    /** Replay the rest of the log, passing each game to LISTENER (if
+     *  non-null) as it ends. Returns the number of games. */
+    public long replay(Listener listener) throws IOException {
+        int moves = 0;
+        while (true) {
+            int code = _pos < _limit ? _buf[_pos++] & 0xFF : readOrEnd();
+            switch (code) {
+                case 0: case 1: case 2: case 3:
+                    if (!_model.gameOver() && _model.tilt(SIDES[code])) {
+                        moves += 1;
+                    }
+                    break;
+                case ReplayWriter.SPAWN_2: case ReplayWriter.SPAWN_4:
+                    int square = readVarint();
+                    int col = square % _size, row = square / _size;
+                    if (!_model.occupied(col, row)) {
+                        _model.addTile(code == ReplayWriter.SPAWN_2 ? 2 : 4, col, row);
+                    }
+                    break;
+                case ReplayWriter.NEW_GAME:
+                    endGame(listener, moves);
+                    moves = 0;
+                    _model.clear();
+                    break;
+                case ReplayWriter.QUIT: case -1:
+                    endGame(listener, moves);
+                    return _games;
+                default:
+                    throw new IOException("bad record code " + code);
+            }
+        }
+    }
+
+    /** Return the game in progress, or the last game if the log has been
+     *  replayed. */
+    public GridModel model() {
+        return _model;
+    }
+
+    /** Return the position of model() as a Model. */
+    public Model toModel() {
+        int[][] raw = new int[_size][_size];
+        for (int col = 0; col < _size; col += 1) {
+            for (int row = 0; row < _size; row += 1) {
+                raw[_size - 1 - row][col] = _model.value(col, row);
+            }
+        }
+        boolean over = _model.gameOver();
+        return new Model(raw, _model.score(), _model.maxScore(), over);
+    }
+
+    /** Return the number of games replayed so far. */
+    public long games() {
+        return _games;
+    }
+
+    /** Return the number of tilts that changed a board so far. */
+    public long moves() {
+        return _moves;
+    }
+
+    /** Return the number of bytes of log read so far. */
+    public long bytesRead() {
+        return _consumed + _pos;
+    }
+
+    /** Count a game that has ended after MOVES tilts. */
+    private void endGame(Listener listener, int moves) {
+        /* Game checks for the end after every tilt, which is what credits
+         * a finished game's score to maxScore(). */
+        _model.gameOver();
+        _games += 1;
+        _moves += moves;
+        if (listener != null) {
+            listener.gameEnded(_model, moves);
+        }
+    }
+
+    /** Refill the buffer. Returns false at end of input. */
+    private boolean fill() throws IOException {
+        _consumed += _limit;
+        _pos = 0;
+        _limit = 0;
+        int n = _in.read(_buf);
+        if (n <= 0) {
+            return false;
+        }
+        _limit = n;
+        return true;
+    }
+
+    /** Return the next byte, or -1 at end of input. */
+    private int readOrEnd() throws IOException {
+        if (_pos == _limit && !fill()) {
+            return -1;
+        }
+        return _buf[_pos++] & 0xFF;
+    }
+
+    /** Return the next byte, which must exist. */
+    private int read() throws IOException {
+        int b = readOrEnd();
+        if (b < 0) {
+            throw new EOFException("truncated replay log");
+        }
+        return b;
+    }
+
+    /** Return the next varint. */
+    private int readVarint() throws IOException {
+        int n = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = _pos < _limit ? _buf[_pos++] & 0xFF : read();
+            n |= (b & 0x7F) << shift;
+            if (b < 0x80) {
+                return n;
+            }
+        }
+        throw new IOException("malformed varint");
+    }
+
+    /** Print the records of the log read by IN to OUT in the text format
+     *  formerly written by GUISource ("K key" for commands, "T value col
+     *  row" for new tiles). */
+    static void printText(InputStream in, PrintStream out) throws IOException {
+        Replayer r = new Replayer(in);
+        String[] keys = { "Up", "Right", "Down", "Left" };
+        for (int code = r.readOrEnd(); code >= 0; code = r.readOrEnd()) {
+            if (code < SIDES.length) {
+                out.printf("K %s%n", keys[code]);
+            } else if (code == ReplayWriter.SPAWN_2 || code == ReplayWriter.SPAWN_4) {
+                int square = r.readVarint();
+                out.printf("T %d %d %d%n", code == ReplayWriter.SPAWN_2 ? 2 : 4,
+                           square % r._size, square / r._size);
+            } else if (code == ReplayWriter.NEW_GAME) {
+                out.println("K New Game");
+            } else if (code == ReplayWriter.QUIT) {
+                out.println("K Quit");
+            } else {
+                throw new IOException("bad record code " + code);
+            }
+        }
+    }
+
+    /** Write GAMES randomly played games on SIZE x SIZE boards to the file
+     *  NAME, logging rejected tile candidates and ineffective keys as
+     *  GUISource would. */
+    static void writeRandomGames(String name, int size, int games, long seed)
+        throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        GridModel model = new GridModel(size);
+        try (ReplayWriter log = new ReplayWriter(name, size)) {
+            for (int g = 0; g < games; g += 1) {
+                if (g > 0) {
+                    log.newGame();
+                }
+                model.clear();
+                boolean first = true;
+                while (!model.gameOver()) {
+                    for (int n = first ? 2 : 1; n > 0; n -= 1) {
+                        while (true) {
+                            int c = random.nextInt(size), r = random.nextInt(size);
+                            int v = random.nextDouble() <= Main.TILE2_PROBABILITY ? 2 : 4;
+                            log.spawn(v, c, r);
+                            if (!model.occupied(c, r)) {
+                                model.addTile(v, c, r);
+                                break;
+                            }
+                        }
+                    }
+                    first = false;
+                    while (!model.gameOver()) {
+                        Side side = SIDES[random.nextInt(SIDES.length)];
+                        log.move(side);
+                        if (model.tilt(side)) {
+                            break;
+                        }
+                    }
+                }
+            }
+            log.quit();
+        }
+    }
+
+    /** Replay a log and print a summary. ARGS are LOG [--text] to replay
+     *  (or with --text, print) the file LOG, or --bench [GAMES] to write
+     *  GAMES random games to a temporary file and time their replay. */
+    public static void main(String... args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: java game2048.Replayer LOG [--text] | --bench [GAMES]");
+            System.exit(1);
+        }
+        String name = args[0];
+        File temp = null;
+        if (name.equals("--bench")) {
+            int games = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+            temp = File.createTempFile("game2048", ".replay");
+            temp.deleteOnExit();
+            name = temp.getPath();
+            long start = System.nanoTime();
+            writeRandomGames(name, Main.BOARD_SIZE, games, 61);
+            System.out.printf("wrote %d games (%d bytes) in %.2f s%n", games, temp.length(),
+                              (System.nanoTime() - start) / 1e9);
+        } else if (args.length > 1 && args[1].equals("--text")) {
+            try (InputStream in = new FileInputStream(name)) {
+                printText(in, System.out);
+            }
+            return;
+        }
+
+        long[] scoreTotal = { 0 };
+        long start = System.nanoTime();
+        try (InputStream in = new FileInputStream(name)) {
+            Replayer replayer = new Replayer(in);
+            replayer.replay((model, moves) -> scoreTotal[0] += model.score());
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("replayed %d games, %d moves, %d bytes in %.2f s: "
+                              + "%.0f games/s, %.1f MB/s%n",
+                              replayer.games(), replayer.moves(), replayer.bytesRead(),
+                              seconds, replayer.games() / seconds,
+                              replayer.bytesRead() / seconds / 1e6);
+            System.out.printf("mean score %.1f; final position:%s%n",
+                              (double) scoreTotal[0] / Math.max(1, replayer.games()),
+                              replayer.toModel());
+        }
+        if (temp != null) {
+            temp.delete();
+        }
+    }
+
+    /** Sides by ordinal, the move record codes. */
+    private static final Side[] SIDES = Side.values();
+
+    /** Source of the log. */
+    private final InputStream _in;
+    /** Input buffer; unread bytes are _buf[_pos .. _limit-1]. */
+    private final byte[] _buf = new byte[1 << 16];
+    private int _pos, _limit;
+    /** Bytes in buffers before the current one. */
+    private long _consumed;
+    /** Board size. */
+    private final int _size;
+    /** The game being replayed. */
+    private final GridModel _model;
+    /** Statistics. */
+    private long _games, _moves;
+}
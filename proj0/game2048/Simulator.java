@@ -0,0 +1,251 @@
+package game2048;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/** Plays games of 2048 without a GUI, as fast as a MovePolicy allows.
+ *
+ *  Games follow the same rules as Game.playGame: two random tiles to
+ *  start, then alternately a tilt chosen by the policy and a new random
+ *  tile, until no tilt is possible or a tile reaches the target value
+ *  (Model.MAX_PIECE unless told otherwise). The board is a BitBoard held
+ *  in a single long, so playing a game allocates nothing and there is no
+ *  Model, Observable, or Tile involved.
+ *
+ *  All randomness, both for new tiles and for the policy, comes from one
+ *  SplittableRandom, so a Simulator built with a given seed and policy
+ *  always plays the same sequence of games.
+ */
+public class Simulator {
+
+    /** Results of a run of games. */
+    public static class Stats {
+
+        /** Number of games played. */
+        public int games() {
+            return _games;
+        }
+
+        /** Total number of tilts over all games. */
+        public long moves() {
+            return _moves;
+        }
+
+        /** Wall-clock time of the run in seconds. */
+        public double seconds() {
+            return _seconds;
+        }
+
+        /** Games played per second. */
+        public double gamesPerSecond() {
+            return _games / _seconds;
+        }
+
+        /** Mean final score. */
+        public double meanScore() {
+            return _games == 0 ? 0 : (double) _totalScore / _games;
+        }
+
+        /** Returns the final score below which a fraction P (0 <= P <= 1)
+         *  of games ended. */
+        public int scorePercentile(double p) {
+            if (_games == 0) {
+                return 0;
+            }
+            if (!_sorted) {
+                Arrays.sort(_scores, 0, _games);
+                _sorted = true;
+            }
+            int k = (int) Math.min(_games - 1, Math.floor(p * _games));
+            return _scores[k];
+        }
+
+        /** Number of games whose largest tile was 2 ** EXPONENT. */
+        public int maxTileCount(int exponent) {
+            return _maxTiles[exponent];
+        }
+
+        /** Fraction of games whose largest tile was at least VALUE. */
+        public double reached(int value) {
+            int n = 0;
+            for (int e = BitBoard.exponentOf(value); e < _maxTiles.length; e += 1) {
+                n += _maxTiles[e];
+            }
+            return _games == 0 ? 0 : (double) n / _games;
+        }
+
+        /** Records a game ending with SCORE and largest tile 2 ** MAXEXP
+         *  after MOVES tilts. */
+        private void record(int score, int maxExp, int moves) {
+            if (_games == _scores.length) {
+                _scores = Arrays.copyOf(_scores, 2 * _scores.length);
+            }
+            _scores[_games] = score;
+            _games += 1;
+            _sorted = false;
+            _totalScore += score;
+            _moves += moves;
+            _maxTiles[maxExp] += 1;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder();
+            out.append(String.format("%d games, %d moves in %.2f s: "
+                                     + "%.0f games/s, %.0f moves/s%n",
+                                     _games, _moves, _seconds,
+                                     gamesPerSecond(), _moves / _seconds));
+            out.append(String.format("score: mean %.0f, p10 %d, median %d, "
+                                     + "p90 %d, max %d%n",
+                                     meanScore(), scorePercentile(0.1),
+                                     scorePercentile(0.5), scorePercentile(0.9),
+                                     scorePercentile(1.0)));
+            out.append("largest tile:");
+            for (int e = 1; e < _maxTiles.length; e += 1) {
+                if (_maxTiles[e] > 0) {
+                    out.append(String.format(" %d: %.2f%%", 1 << e,
+                                             100.0 * _maxTiles[e] / _games));
+                }
+            }
+            return out.toString();
+        }
+
+        /** Final scores of the games played, in _scores[0 .. _games-1]. */
+        private int[] _scores = new int[1024];
+        /** True iff _scores[0 .. _games-1] is sorted. */
+        private boolean _sorted;
+        private int _games;
+        private long _moves;
+        private long _totalScore;
+        private double _seconds;
+        /** _maxTiles[E] is the number of games with largest tile 2 ** E. */
+        private final int[] _maxTiles = new int[BitBoard.MAX_EXPONENT + 1];
+    }
+
+    /** A simulator choosing moves with POLICY and seeded with SEED, that
+     *  ends games at Model.MAX_PIECE. */
+    public Simulator(MovePolicy policy, long seed) {
+        this(policy, seed, Model.MAX_PIECE);
+    }
+
+    /** A simulator choosing moves with POLICY and seeded with SEED, that
+     *  ends games when a tile reaches TARGET, a power of 2. A TARGET of 0
+     *  plays until no move is possible. */
+    public Simulator(MovePolicy policy, long seed, int target) {
+        _policy = policy;
+        _random = new SplittableRandom(seed);
+        _targetExp = target == 0 ? BitBoard.MAX_EXPONENT + 1 : BitBoard.exponentOf(target);
+    }
+
+    /** Plays one game and returns its final board. The game's score and
+     *  length are then available from score() and moves(). */
+    public long playGame() {
+        long board = addRandomTile(addRandomTile(0));
+        _score = 0;
+        _moves = 0;
+        while (!gameOver(board)) {
+            Side side = _policy.choose(board, _random);
+            long next = BitBoard.tilt(board, side);
+            if (next == board) {
+                throw new IllegalStateException("policy chose illegal move " + side);
+            }
+            _score += BitBoard.tiltScore(board, side);
+            _moves += 1;
+            board = next;
+            if (gameOver(board)) {
+                break;
+            }
+            board = addRandomTile(board);
+        }
+        return board;
+    }
+
+    /** Plays GAMES games and returns their statistics. */
+    public Stats run(int games) {
+        Stats stats = new Stats();
+        long start = System.nanoTime();
+        for (int i = 0; i < games; i += 1) {
+            long board = playGame();
+            stats.record(_score, BitBoard.maxExponent(board), _moves);
+        }
+        stats._seconds = (System.nanoTime() - start) / 1e9;
+        return stats;
+    }
+
+    /** Final score of the last game played. */
+    public int score() {
+        return _score;
+    }
+
+    /** Number of tilts in the last game played. */
+    public int moves() {
+        return _moves;
+    }
+
+    /** Returns true iff BOARD ends the game. */
+    private boolean gameOver(long board) {
+        return BitBoard.maxExponent(board) >= _targetExp || !BitBoard.canMove(board);
+    }
+
+    /** Returns BOARD, which must have an empty square, with a new tile in
+     *  a random empty square: 2 with probability Main.TILE2_PROBABILITY,
+     *  otherwise 4. */
+    long addRandomTile(long board) {
+        int k = _random.nextInt(BitBoard.emptyCount(board));
+        int exp = _random.nextDouble() <= Main.TILE2_PROBABILITY ? 1 : 2;
+        for (int shift = 0; ; shift += 4) {
+            if (((board >>> shift) & 0xF) == 0) {
+                if (k == 0) {
+                    return board | (long) exp << shift;
+                }
+                k -= 1;
+            }
+        }
+    }
+
+    /** Returns the policy named by NAME: "random", "greedy", or
+     *  "expectimax" optionally followed by ":DEPTH". */
+    static MovePolicy policyNamed(String name) {
+        if (name.equals("random")) {
+            return MovePolicy.random();
+        } else if (name.equals("greedy")) {
+            return MovePolicy.greedy();
+        } else if (name.startsWith("expectimax")) {
+            int colon = name.indexOf(':');
+            int depth = colon < 0 ? 2 : Integer.parseInt(name.substring(colon + 1));
+            return new Expectimax(depth);
+        }
+        throw new IllegalArgumentException("unknown policy: " + name);
+    }
+
+    /** Plays games headlessly and prints their statistics. ARGS are
+     *  POLICY GAMES [SEED], with POLICY as for policyNamed. With no
+     *  arguments, plays each policy for a few seconds. */
+    public static void main(String... args) {
+        if (args.length > 0) {
+            int games = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+            long seed = args.length > 2 ? Long.parseLong(args[2]) : 61;
+            Simulator sim = new Simulator(policyNamed(args[0]), seed);
+            System.out.println(sim.run(games));
+            return;
+        }
+        String[] policies = { "random", "greedy", "expectimax:1", "expectimax:2" };
+        int[] games = { 200000, 100000, 1000, 100 };
+        for (int i = 0; i < policies.length; i += 1) {
+            Simulator sim = new Simulator(policyNamed(policies[i]), 61);
+            sim.run(games[i] / 10);
+            System.out.printf("== %s%n%s%n", policies[i], sim.run(games[i]));
+        }
+    }
+
+    /** Chooses our moves. */
+    private final MovePolicy _policy;
+    /** Source of new tiles and of the policy's randomness. */
+    private final SplittableRandom _random;
+    /** Games end when a tile reaches 2 ** _targetExp. */
+    private final int _targetExp;
+    /** Score of the current or last game. */
+    private int _score;
+    /** Tilts in the current or last game. */
+    private int _moves;
+}
@@ -0,0 +1,88 @@
+package game2048;
+
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/** Tests of AutoPlayer and its TranspositionTable. */
+public class TestAutoPlayer {
+
+    @Test
+    public void testTableStoresByDepth() {
+        TranspositionTable table = new TranspositionTable(4);
+        assertTrue(Double.isNaN(table.get(12345, 1)));
+        table.put(12345, 3, 1.5);
+        assertEquals(1.5, table.get(12345, 3), 0);
+        assertEquals(1.5, table.get(12345, 2), 0);
+        assertTrue(Double.isNaN(table.get(12345, 4)));
+        assertTrue(Double.isNaN(table.get(54321, 1)));
+        table.clear();
+        assertTrue(Double.isNaN(table.get(12345, 3)));
+    }
+
+    @Test
+    public void testMatchesSequentialSearchWithoutTable() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        Simulator source = new Simulator(MovePolicy.random(), 11);
+        SplittableRandom random = new SplittableRandom(11);
+        for (int i = 0; i < 40; i += 1) {
+            long board = 0;
+            for (int k = 0; k < 3 + i % 10; k += 1) {
+                board = source.addRandomTile(board);
+            }
+            AutoPlayer player = new AutoPlayer(2, 0, pool, 0);
+            assertEquals(new Expectimax(2).choose(board, random), player.bestMove(board));
+            assertEquals(2, player.lastDepth());
+            assertTrue(player.lastNodes() > 0);
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void testTimeBudgetLimitsDepth() {
+        AutoPlayer player = new AutoPlayer(20, 20);
+        long board = BitBoard.withExponent(BitBoard.withExponent(0, 0, 0, 1), 3, 3, 1);
+        long start = System.nanoTime();
+        Side side = player.bestMove(board);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        assertNotNull(side);
+        assertTrue(player.lastDepth() >= 1 && player.lastDepth() < 20);
+        assertTrue("took " + millis + " ms", millis < 1000);
+    }
+
+    @Test
+    public void testHugeBudgetDoesNotOverflow() {
+        AutoPlayer player = new AutoPlayer(2, Long.MAX_VALUE, ForkJoinPool.commonPool(), 0);
+        long board = BitBoard.withExponent(BitBoard.withExponent(0, 0, 0, 1), 3, 3, 1);
+        assertNotNull(player.bestMove(board));
+        assertEquals(2, player.lastDepth());
+    }
+
+    @Test
+    public void testMovesModel() {
+        Model model = new Model(new int[][] {
+            {0, 0, 0, 0},
+            {0, 0, 0, 0},
+            {0, 2, 0, 0},
+            {0, 2, 0, 4},
+        }, 0, 0, false);
+        AutoPlayer player = new AutoPlayer(3, 0, ForkJoinPool.commonPool(), 0);
+        long before = BitBoard.fromModel(model);
+        Side side = player.bestMove(model);
+        assertTrue(player.move(model));
+        assertEquals(BitBoard.tilt(before, side), BitBoard.fromModel(model));
+        assertEquals(BitBoard.tiltScore(before, side), model.score());
+
+        Model stuck = new Model(new int[][] {
+            {2, 4, 2, 4},
+            {4, 2, 4, 2},
+            {2, 4, 2, 4},
+            {4, 2, 4, 2},
+        }, 0, 0, false);
+        assertNull(player.bestMove(stuck));
+        assertFalse(player.move(stuck));
+    }
+}
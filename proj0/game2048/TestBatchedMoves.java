@@ -0,0 +1,105 @@
+package game2048;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Tests that Game's batched moves play exactly like unbatched ones while
+ *  notifying observers once per burst of queued input. */
+public class TestBatchedMoves {
+
+    /** An InputSource whose keys are all queued from the start, except
+     *  that the source reports not being ready after every BURST keys. */
+    private static class QueuedSource implements InputSource {
+        QueuedSource(List<String> keys, long seed, int burst) {
+            _keys = new ArrayDeque<>(keys);
+            _random = new Random(seed);
+            _burst = burst;
+        }
+
+        @Override
+        public String getKey() {
+            _read += 1;
+            return _keys.remove();
+        }
+
+        @Override
+        public boolean ready() {
+            return !_keys.isEmpty() && _read % _burst != 0;
+        }
+
+        @Override
+        public Tile getNewTile(int size) {
+            int c = _random.nextInt(size), r = _random.nextInt(size);
+            return Tile.create(_random.nextInt(10) == 0 ? 4 : 2, c, r);
+        }
+
+        private final ArrayDeque<String> _keys;
+        private final Random _random;
+        private final int _burst;
+        private int _read;
+    }
+
+    /** Returns MOVES random arrow keys, with a "New Game" near the middle,
+     *  ending with "Quit". */
+    private static List<String> keys(int moves) {
+        String[] arrows = { "Up", "Right", "Down", "Left" };
+        Random random = new Random(46);
+        List<String> keys = new ArrayList<>();
+        for (int k = 0; k < moves; k += 1) {
+            keys.add(k == moves / 2 ? "New Game" : arrows[random.nextInt(4)]);
+        }
+        keys.add("Quit");
+        return keys;
+    }
+
+    /** Plays KEYS on a new MODEL with batching iff BATCHING, reporting the
+     *  input as ready in bursts of BURST keys, and returns the arguments
+     *  of the notifications observers received. */
+    private static List<Object> play(GameState model, List<String> keys,
+                                     boolean batching, int burst) {
+        List<Object> notes = new ArrayList<>();
+        model.addObserver((o, arg) -> notes.add(arg));
+        Game game = new Game(model, new QueuedSource(keys, 7, burst));
+        game.setBatching(batching);
+        while (game.playing()) {
+            game.playGame();
+        }
+        return notes;
+    }
+
+    @Test
+    public void testSameGameWithFewerNotifications() {
+        List<String> keys = keys(400);
+        Model plain = new Model(4);
+        List<Object> plainNotes = play(plain, keys, false, 25);
+        for (int burst : new int[] { 1, 2, 25, 1000 }) {
+            Model batched = new Model(4);
+            List<Object> notes = play(batched, keys, true, burst);
+            assertEquals(plain, batched);
+            if (burst == 1) {
+                assertEquals(plainNotes, notes);
+            } else {
+                assertTrue(notes.size() < plainNotes.size());
+            }
+        }
+    }
+
+    @Test
+    public void testBatchNotifiedBeforeWaiting() {
+        List<String> keys = keys(60);
+        GridModel grid = new GridModel(4);
+        List<Object> notes = play(grid, keys, true, 20);
+        assertTrue(notes.contains(Game.BATCH));
+        int batches = 0;
+        for (Object note : notes) {
+            batches += Game.BATCH.equals(note) ? 1 : 0;
+        }
+        assertTrue(batches <= 4);
+    }
+}
@@ -0,0 +1,87 @@
+package game2048;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/** Tests that BigBoard tilts like GridModel, sequentially and in
+ *  parallel, and handles tiles beyond Model.MAX_PIECE. */
+public class TestBigBoard {
+
+    @Test
+    public void testMatchesGridModel() {
+        Random random = new Random(43);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        for (int trial = 0; trial < 400; trial += 1) {
+            int size = 2 + trial % 11;
+            int[][] raw = new int[size][size];
+            BigBoard big = new BigBoard(size, 1);
+            for (int col = 0; col < size; col += 1) {
+                for (int row = 0; row < size; row += 1) {
+                    int e = random.nextInt(3) == 0 ? 0 : 1 + random.nextInt(4);
+                    raw[size - 1 - row][col] = e == 0 ? 0 : 1 << e;
+                    big.setExponent(col, row, e);
+                }
+            }
+            GridModel grid = new GridModel(raw, 0, 0);
+            for (int t = 0; t < 6; t += 1) {
+                Side side = Side.values()[random.nextInt(4)];
+                boolean changed = grid.tilt(side);
+                assertEquals(changed, big.tilt(side, t % 2 == 0 ? pool : null));
+                int empty = 0;
+                for (int col = 0; col < size; col += 1) {
+                    for (int row = 0; row < size; row += 1) {
+                        assertEquals(grid.value(col, row), big.value(col, row));
+                        empty += grid.occupied(col, row) ? 0 : 1;
+                    }
+                }
+                assertEquals(grid.score(), big.score());
+                assertEquals(empty, big.emptyCount());
+            }
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void testParallelMatchesSequentialOnLargeBoard() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        BigBoard seq = new BigBoard(1024);
+        seq.fillRandom(0.5, new SplittableRandom(1));
+        BigBoard par = new BigBoard(1024, 1 << 12);
+        par.copyFrom(seq);
+        for (Side side : Side.values()) {
+            assertEquals(seq.tilt(side), par.tilt(side, pool));
+            assertEquals(seq.score(), par.score());
+            assertEquals(seq.emptyCount(), par.emptyCount());
+            assertEquals(seq.maxExponent(), par.maxExponent());
+        }
+        for (int col = 0; col < 1024; col += 1) {
+            for (int row = 0; row < 1024; row += 1) {
+                assertEquals(seq.exponent(col, row), par.exponent(col, row));
+            }
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void testTilesBeyondMaxPiece() {
+        BigBoard board = new BigBoard(8);
+        board.setExponent(0, 0, 40);
+        board.setExponent(7, 0, 40);
+        assertTrue(board.tilt(Side.WEST));
+        assertEquals(41, board.exponent(0, 0));
+        assertEquals(1L << 41, board.value(0, 0));
+        assertEquals(1L << 41, board.score());
+        assertEquals(41, board.maxExponent());
+
+        board.setExponent(1, 0, BigBoard.MAX_EXPONENT);
+        board.setExponent(2, 0, BigBoard.MAX_EXPONENT);
+        assertTrue(board.tilt(Side.EAST));
+        assertEquals(BigBoard.MAX_EXPONENT, board.exponent(7, 0));
+        assertEquals(BigBoard.MAX_EXPONENT, board.exponent(6, 0));
+    }
+}
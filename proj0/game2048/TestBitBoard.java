@@ -0,0 +1,91 @@
+package game2048;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Tests that BitBoard agrees with Model on tilts, scores, and queries. */
+public class TestBitBoard {
+
+    /** Returns a random 4x4 raw value array in which each square is empty
+     *  with probability 1/3 and otherwise holds a value up to 2^MAXEXP. */
+    private static int[][] randomValues(Random random, int maxExp) {
+        int[][] values = new int[BitBoard.SIZE][BitBoard.SIZE];
+        for (int[] row : values) {
+            for (int c = 0; c < row.length; c += 1) {
+                row[c] = random.nextInt(3) == 0 ? 0 : 1 << (1 + random.nextInt(maxExp));
+            }
+        }
+        return values;
+    }
+
+    @Test
+    public void testRoundTrip() {
+        int[][] values = {
+            {2, 0, 4, 8},
+            {0, 16, 0, 0},
+            {32, 0, 64, 0},
+            {0, 128, 0, 2048},
+        };
+        long board = BitBoard.fromModel(new Model(values, 0, 0, false));
+        assertArrayEquals(values, BitBoard.toRawValues(board));
+        assertEquals(board, BitBoard.fromBoard(BitBoard.toBoard(board)));
+        assertEquals(2048, BitBoard.value(board, 3, 0));
+        assertEquals(2, BitBoard.value(board, 0, 3));
+        assertEquals(8, BitBoard.emptyCount(board));
+        assertEquals(11, BitBoard.maxExponent(board));
+    }
+
+    @Test
+    public void testTransposeIsInvolution() {
+        Random random = new Random(37);
+        for (int i = 0; i < 1000; i += 1) {
+            long board = random.nextLong();
+            long t = BitBoard.transpose(board);
+            assertEquals(board, BitBoard.transpose(t));
+            for (int c = 0; c < BitBoard.SIZE; c += 1) {
+                for (int r = 0; r < BitBoard.SIZE; r += 1) {
+                    assertEquals(BitBoard.exponent(board, c, r), BitBoard.exponent(t, r, c));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTiltMatchesModel() {
+        Random random = new Random(2048);
+        for (int i = 0; i < 5000; i += 1) {
+            int[][] values = randomValues(random, 4 + i % 7);
+            for (Side side : Side.values()) {
+                Model model = new Model(values, 0, 0, false);
+                long before = BitBoard.fromModel(model);
+                boolean changed = model.tilt(side);
+                long after = BitBoard.tilt(before, side);
+                assertEquals("tilt " + side + " of" + model, BitBoard.fromModel(model), after);
+                assertEquals(model.score(), BitBoard.tiltScore(before, side));
+                assertEquals(changed, after != before);
+            }
+        }
+    }
+
+    @Test
+    public void testCanMove() {
+        Random random = new Random(4);
+        for (int i = 0; i < 2000; i += 1) {
+            int[][] values = randomValues(random, 3);
+            Board b = new Board(values, 0);
+            assertEquals(Model.atLeastOneMoveExists(b),
+                         BitBoard.canMove(BitBoard.fromBoard(b)));
+        }
+    }
+
+    @Test
+    public void testLargestTilesDoNotOverflow() {
+        long board = BitBoard.withExponent(0, 0, 0, BitBoard.MAX_EXPONENT);
+        board = BitBoard.withExponent(board, 1, 0, BitBoard.MAX_EXPONENT);
+        assertEquals(board, BitBoard.tilt(board, Side.WEST));
+        assertEquals(0, BitBoard.tiltScore(board, Side.WEST));
+    }
+}
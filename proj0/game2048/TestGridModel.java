@@ -0,0 +1,131 @@
+package game2048;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Tests that GridModel plays exactly like Model and that its recorded
+ *  TileEvents describe its changes. */
+public class TestGridModel {
+
+    /** Asserts that GRID and MODEL hold the same tiles and scores. */
+    private static void assertSameGame(Model model, GridModel grid) {
+        for (int col = 0; col < model.size(); col += 1) {
+            for (int row = 0; row < model.size(); row += 1) {
+                Tile t = model.tile(col, row);
+                if ((t == null ? 0 : t.value()) != grid.value(col, row)) {
+                    fail("expected" + model + "but got" + grid);
+                }
+            }
+        }
+        assertEquals(model.score(), grid.score());
+        assertEquals(model.gameOver(), grid.gameOver());
+        assertEquals(model.maxScore(), grid.maxScore());
+    }
+
+    /** Returns the values of GRID, indexed [col][row]. */
+    private static int[][] snapshot(GridModel grid) {
+        int[][] values = new int[grid.size()][grid.size()];
+        for (int col = 0; col < grid.size(); col += 1) {
+            for (int row = 0; row < grid.size(); row += 1) {
+                values[col][row] = grid.value(col, row);
+            }
+        }
+        return values;
+    }
+
+    @Test
+    public void testMatchesModel() {
+        Random random = new Random(41);
+        Side[] sides = Side.values();
+        for (int size = 2; size <= 6; size += 1) {
+            Model model = new Model(size);
+            GridModel grid = new GridModel(size);
+            for (int game = 0; game < 30; game += 1) {
+                model.clear();
+                grid.clear();
+                while (!model.gameOver()) {
+                    int c = random.nextInt(size), r = random.nextInt(size);
+                    if (model.occupied(c, r)) {
+                        continue;
+                    }
+                    int v = random.nextInt(10) == 0 ? 4 : 2;
+                    model.addTile(Tile.create(v, c, r));
+                    grid.addTile(v, c, r);
+                    assertSameGame(model, grid);
+                    for (int tries = 0; tries < 8; tries += 1) {
+                        Side side = sides[random.nextInt(4)];
+                        boolean changed = model.tilt(side);
+                        assertEquals(changed, grid.tilt(side));
+                        assertSameGame(model, grid);
+                        if (changed) {
+                            break;
+                        }
+                    }
+                    if (!model.occupied(c, r) && !model.gameOver() && random.nextInt(8) == 0) {
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEventsReplayTilt() {
+        Random random = new Random(5);
+        GridModel grid = new GridModel(4);
+        grid.setRecording(true);
+        for (int trial = 0; trial < 2000; trial += 1) {
+            grid.clear();
+            for (int k = 0; k < 10; k += 1) {
+                int c = random.nextInt(4), r = random.nextInt(4);
+                if (!grid.occupied(c, r)) {
+                    grid.addTile(2 << random.nextInt(3), c, r);
+                }
+            }
+            int[][] before = snapshot(grid);
+            grid.events().clear();
+            grid.tilt(Side.values()[trial % 4]);
+
+            TileEvents events = grid.events();
+            int[][] after = new int[4][4];
+            int tiles = 0;
+            for (int[] column : before) {
+                for (int v : column) {
+                    tiles += v == 0 ? 0 : 1;
+                }
+            }
+            assertEquals(tiles, events.size());
+            for (int k = 0; k < events.size(); k += 1) {
+                assertEquals(before[events.fromCol(k)][events.fromRow(k)], events.value(k));
+                after[events.toCol(k)][events.toRow(k)] += events.value(k);
+                assertTrue(events.kind(k) != TileEvents.MERGE
+                           || grid.value(events.toCol(k), events.toRow(k)) == 2 * events.value(k));
+            }
+            assertArrayEquals(snapshot(grid), after);
+        }
+    }
+
+    @Test
+    public void testEventBufferIsReused() {
+        GridModel grid = new GridModel(4);
+        grid.setRecording(true);
+        grid.addTile(2, 0, 0);
+        assertEquals(1, grid.events().size());
+        assertEquals(TileEvents.SPAWN, grid.events().kind(0));
+        TileEvents events = grid.events();
+        events.clear();
+        grid.tilt(Side.NORTH);
+        assertSame(events, grid.events());
+        assertEquals(1, events.size());
+        assertEquals(3, events.toRow(0));
+        assertEquals(3, events.distance(0));
+
+        GridModel quiet = new GridModel(4);
+        quiet.addTile(2, 0, 0);
+        quiet.tilt(Side.EAST);
+        assertEquals(0, quiet.events().size());
+    }
+}
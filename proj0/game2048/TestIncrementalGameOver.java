@@ -0,0 +1,86 @@
+package game2048;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Checks Model's incrementally maintained game-over state against a
+ *  full rescan of the board over many random games. */
+public class TestIncrementalGameOver {
+
+    /** Returns true iff the position of MODEL ends the game. */
+    private static boolean rescan(Model model) {
+        long board = BitBoard.fromModel(model);
+        return BitBoard.maxExponent(board) >= BitBoard.exponentOf(Model.MAX_PIECE)
+            || !BitBoard.canMove(board);
+    }
+
+    /** Adds a random tile to MODEL, which must have an empty square. */
+    private static void addRandomTile(Model model, Random random) {
+        while (true) {
+            int c = random.nextInt(model.size()), r = random.nextInt(model.size());
+            if (model.tile(c, r) == null) {
+                model.addTile(Tile.create(random.nextInt(10) == 0 ? 4 : 2, c, r));
+                return;
+            }
+        }
+    }
+
+    @Test
+    public void testRandomGames() {
+        Random random = new Random(40);
+        Side[] sides = Side.values();
+        Model model = new Model(4);
+        for (int game = 0; game < 300; game += 1) {
+            model.clear();
+            assertFalse(model.gameOver());
+            addRandomTile(model, random);
+            while (!model.gameOver()) {
+                addRandomTile(model, random);
+                assertEquals(rescan(model), model.gameOver());
+                boolean moved = false;
+                for (int tries = 0; tries < 20 && !moved && !model.gameOver(); tries += 1) {
+                    moved = model.tilt(sides[random.nextInt(sides.length)]);
+                    assertEquals(rescan(model), model.gameOver());
+                }
+                if (!moved) {
+                    break;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testConstructedBoards() {
+        Model full = new Model(new int[][] {
+            {2, 4, 2, 4},
+            {4, 2, 4, 2},
+            {2, 4, 2, 4},
+            {4, 2, 4, 2},
+        }, 0, 0, false);
+        assertTrue(full.gameOver());
+
+        Model pair = new Model(new int[][] {
+            {2, 4, 2, 4},
+            {4, 2, 4, 2},
+            {2, 4, 2, 4},
+            {4, 2, 4, 4},
+        }, 0, 0, false);
+        assertFalse(pair.gameOver());
+        assertTrue(pair.tilt(Side.EAST));
+        assertEquals(8, pair.score());
+        assertFalse(pair.gameOver());
+
+        Model won = new Model(new int[][] {
+            {0, 0, 0, 0},
+            {0, 0, 0, 0},
+            {0, 0, 0, 0},
+            {0, 0, 1024, 1024},
+        }, 0, 0, false);
+        assertFalse(won.gameOver());
+        assertTrue(won.tilt(Side.WEST));
+        assertTrue(won.gameOver());
+    }
+}
@@ -0,0 +1,139 @@
+package game2048;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Tests that games played by Game and logged with ReplayWriter replay to
+ *  the same positions. */
+public class TestReplay {
+
+    /** An InputSource of random keys and tiles that logs them as
+     *  GUISource does. */
+    private static class LoggingSource implements InputSource {
+        LoggingSource(ReplayWriter log, long seed, int keys) {
+            _log = log;
+            _random = new Random(seed);
+            _keysLeft = keys;
+        }
+
+        @Override
+        public String getKey() {
+            try {
+                _keysLeft -= 1;
+                if (_keysLeft == 0) {
+                    _log.quit();
+                    return "Quit";
+                } else if (_random.nextInt(200) == 0) {
+                    _log.newGame();
+                    return "New Game";
+                }
+                Side side = Side.values()[_random.nextInt(4)];
+                _log.move(side);
+                return KEYS[side.ordinal()];
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        }
+
+        @Override
+        public Tile getNewTile(int size) {
+            int c = _random.nextInt(size), r = _random.nextInt(size);
+            int v = _random.nextInt(10) == 0 ? 4 : 2;
+            try {
+                _log.spawn(v, c, r);
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+            return Tile.create(v, c, r);
+        }
+
+        /** Keys by Side ordinal. */
+        private static final String[] KEYS = { "Up", "Right", "Down", "Left" };
+
+        private final ReplayWriter _log;
+        private final Random _random;
+        private int _keysLeft;
+    }
+
+    /** Asserts that replaying the log in BYTES ends in the position of
+     *  MODEL, and returns the replayer. */
+    private static Replayer assertReplays(byte[] bytes, Model model)
+        throws IOException {
+        Replayer replayer = new Replayer(new ByteArrayInputStream(bytes));
+        assertEquals(model.size(), replayer.size());
+        replayer.replay(null);
+        assertEquals(model, replayer.toModel());
+        return replayer;
+    }
+
+    @Test
+    public void testReplayMatchesGame() throws IOException {
+        for (int size = 2; size <= 5; size += 1) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            Model model = new Model(size);
+            try (ReplayWriter log = new ReplayWriter(bytes, size)) {
+                Game game = new Game(model, new LoggingSource(log, size, 3000));
+                int games = 0;
+                while (game.playing()) {
+                    game.playGame();
+                    games += 1;
+                }
+                log.flush();
+                Replayer replayer = assertReplays(bytes.toByteArray(), model);
+                assertEquals(games, replayer.games());
+                assertEquals(bytes.size(), replayer.bytesRead());
+            }
+        }
+    }
+
+    @Test
+    public void testListenerSeesEachGame() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ReplayWriter log = new ReplayWriter(bytes, 4)) {
+            log.spawn(2, 0, 0);
+            log.spawn(2, 0, 0);
+            log.spawn(2, 3, 0);
+            log.move(Side.WEST);
+            log.move(Side.WEST);
+            log.newGame();
+            log.spawn(4, 1, 2);
+        }
+        Replayer replayer = new Replayer(new ByteArrayInputStream(bytes.toByteArray()));
+        List<String> ends = new ArrayList<>();
+        replayer.replay((model, moves) ->
+                        ends.add(model.score() + "/" + moves + "/" + model.value(1, 2)));
+        assertEquals(List.of("4/1/0", "0/0/4"), ends);
+        assertEquals(2, replayer.games());
+        assertEquals(1, replayer.moves());
+    }
+
+    @Test
+    public void testTextDump() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ReplayWriter log = new ReplayWriter(bytes, 12)) {
+            log.spawn(4, 11, 10);
+            log.move(Side.SOUTH);
+            log.newGame();
+            log.quit();
+        }
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        Replayer.printText(new ByteArrayInputStream(bytes.toByteArray()),
+                           new PrintStream(text, true));
+        assertEquals(String.format("T 4 11 10%nK Down%nK New Game%nK Quit%n"),
+                     text.toString());
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsBadHeader() throws IOException {
+        new Replayer(new ByteArrayInputStream("K Up\n".getBytes()));
+    }
+}
@@ -0,0 +1,75 @@
+package game2048;
+
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/** Tests of the headless Simulator and its move policies. */
+public class TestSimulator {
+
+    @Test
+    public void testSameSeedSameGames() {
+        for (String name : new String[] { "random", "greedy", "expectimax:1" }) {
+            Simulator a = new Simulator(Simulator.policyNamed(name), 7);
+            Simulator b = new Simulator(Simulator.policyNamed(name), 7);
+            for (int i = 0; i < 20; i += 1) {
+                assertEquals(name, a.playGame(), b.playGame());
+                assertEquals(name, a.score(), b.score());
+                assertEquals(name, a.moves(), b.moves());
+            }
+        }
+    }
+
+    @Test
+    public void testGamesEndAtTargetOrStuck() {
+        Simulator sim = new Simulator(MovePolicy.greedy(), 1, 64);
+        for (int i = 0; i < 200; i += 1) {
+            long board = sim.playGame();
+            assertTrue(BitBoard.maxExponent(board) >= 6 || !BitBoard.canMove(board));
+            assertTrue(BitBoard.maxExponent(board) <= 6);
+        }
+    }
+
+    @Test
+    public void testStats() {
+        Simulator.Stats stats = new Simulator(MovePolicy.random(), 3).run(2000);
+        assertEquals(2000, stats.games());
+        int total = 0;
+        for (int e = 0; e <= BitBoard.MAX_EXPONENT; e += 1) {
+            total += stats.maxTileCount(e);
+        }
+        assertEquals(2000, total);
+        assertEquals(1.0, stats.reached(4), 1e-9);
+        assertTrue(stats.scorePercentile(0.1) <= stats.scorePercentile(0.5));
+        assertTrue(stats.scorePercentile(0.5) <= stats.scorePercentile(1.0));
+    }
+
+    @Test
+    public void testPoliciesChooseLegalMoves() {
+        SplittableRandom random = new SplittableRandom(9);
+        Simulator source = new Simulator(MovePolicy.random(), 9);
+        MovePolicy[] policies = { MovePolicy.random(), MovePolicy.greedy(), new Expectimax(2) };
+        for (int i = 0; i < 200; i += 1) {
+            long board = 0;
+            for (int k = 0; k < 1 + i % 15; k += 1) {
+                board = source.addRandomTile(board);
+            }
+            if (!BitBoard.canMove(board)) {
+                continue;
+            }
+            for (MovePolicy p : policies) {
+                Side side = p.choose(board, random);
+                assertNotEquals(board, BitBoard.tilt(board, side));
+            }
+        }
+    }
+
+    @Test
+    public void testExpectimaxBeatsRandom() {
+        double random = new Simulator(MovePolicy.random(), 5).run(50).meanScore();
+        double search = new Simulator(new Expectimax(1), 5).run(50).meanScore();
+        assertTrue(search > 2 * random);
+    }
+}
@@ -0,0 +1,117 @@
+package game2048;
+
+import java.util.Arrays;
+
+/** A reusable list of the tile movements made by one or more changes to
+ *  a GridModel, in the form BoardWidget needs to animate them.
+ *
+ *  Each event has a kind, a starting square, an ending square, and the
+ *  value of the tile before the change:
+ *  <ul>
+ *  <li> MOVE: a tile slid (or stayed put, if the squares are equal).
+ *  <li> MERGE: a tile slid onto one of equal value; the ending square now
+ *       holds twice VALUE.
+ *  <li> SPAWN: a new tile appeared; both squares are its position.
+ *  </ul>
+ *  Events are stored in one int array that grows as needed and is never
+ *  shrunk, so a buffer that is cleared and refilled allocates nothing
+ *  once it has reached its working size.
+ */
+public class TileEvents {
+
+    /** Event kinds. */
+    public static final int MOVE = 0, MERGE = 1, SPAWN = 2;
+
+    /** Number of ints per event. */
+    private static final int WIDTH = 6;
+
+    /** An empty buffer. */
+    public TileEvents() {
+        _data = new int[WIDTH * 16];
+    }
+
+    /** Returns the number of events. */
+    public int size() {
+        return _size;
+    }
+
+    /** Removes all events, keeping the storage. */
+    public void clear() {
+        _size = 0;
+    }
+
+    /** Appends an event of the given KIND moving a tile of value VALUE
+     *  from (FROMCOL, FROMROW) to (TOCOL, TOROW). */
+    void add(int kind, int fromCol, int fromRow, int toCol, int toRow, int value) {
+        int i = WIDTH * _size;
+        if (i == _data.length) {
+            _data = Arrays.copyOf(_data, 2 * _data.length);
+        }
+        _data[i] = kind;
+        _data[i + 1] = fromCol;
+        _data[i + 2] = fromRow;
+        _data[i + 3] = toCol;
+        _data[i + 4] = toRow;
+        _data[i + 5] = value;
+        _size += 1;
+    }
+
+    /** Appends a copy of event K of OTHER. */
+    void addFrom(TileEvents other, int k) {
+        add(other.kind(k), other.fromCol(k), other.fromRow(k),
+            other.toCol(k), other.toRow(k), other.value(k));
+    }
+
+    /** Returns the kind of event K. */
+    public int kind(int k) {
+        return _data[WIDTH * k];
+    }
+
+    /** Returns the starting column of event K. */
+    public int fromCol(int k) {
+        return _data[WIDTH * k + 1];
+    }
+
+    /** Returns the starting row of event K. */
+    public int fromRow(int k) {
+        return _data[WIDTH * k + 2];
+    }
+
+    /** Returns the ending column of event K. */
+    public int toCol(int k) {
+        return _data[WIDTH * k + 3];
+    }
+
+    /** Returns the ending row of event K. */
+    public int toRow(int k) {
+        return _data[WIDTH * k + 4];
+    }
+
+    /** Returns the value of the tile in event K before the change. */
+    public int value(int k) {
+        return _data[WIDTH * k + 5];
+    }
+
+    /** Returns the distance in rows or columns moved in event K. */
+    public int distance(int k) {
+        return Math.max(Math.abs(fromCol(k) - toCol(k)),
+                        Math.abs(fromRow(k) - toRow(k)));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder("[");
+        for (int k = 0; k < _size; k += 1) {
+            out.append(String.format("%s%s %d (%d, %d)->(%d, %d)",
+                                     k == 0 ? "" : ", ",
+                                     kind(k) == MOVE ? "move" : kind(k) == MERGE ? "merge" : "spawn",
+                                     value(k), fromCol(k), fromRow(k), toCol(k), toRow(k)));
+        }
+        return out.append("]").toString();
+    }
+
+    /** Event fields, WIDTH ints per event. */
+    private int[] _data;
+    /** Number of events. */
+    private int _size;
+}
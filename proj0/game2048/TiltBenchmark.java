@@ -0,0 +1,180 @@
+package game2048;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/** Measures tilts per second toward each Side, comparing the former
+ *  Model.tilt kernel, which viewed the Board through setViewingPerspective
+ *  so that every access went through Side.col and Side.row, with the same
+ *  kernel walking a precomputed TiltOrder over raw indices. For reference
+ *  it also times the whole of Model.tilt (which also maintains the
+ *  game-over counters and notifies Observable) and GridModel.tilt.
+ *
+ *  Each round builds a batch of random half-full boards (untimed) and
+ *  then times one tilt of each.
+ */
+public class TiltBenchmark {
+
+    /** Boards per round. */
+    private static final int BATCH = 4096;
+
+    /** Tilts BOARD toward SIDE as Model.tilt used to, through the viewing
+     *  perspective, and returns the score earned. */
+    static int perspectiveTilt(Board board, Side side) {
+        int size = board.size();
+        int score = 0;
+        board.setViewingPerspective(side);
+        for (int col = 0; col < size; col += 1) {
+            boolean[] merged = new boolean[size];
+            for (int row = size - 1; row >= 0; row -= 1) {
+                Tile t = board.tile(col, row);
+                if (t == null) {
+                    continue;
+                }
+                int targetRow = row;
+                while (targetRow + 1 < size) {
+                    Tile nextTile = board.tile(col, targetRow + 1);
+                    if (nextTile == null) {
+                        targetRow += 1;
+                    } else {
+                        if (nextTile.value() == t.value() && !merged[targetRow + 1]) {
+                            targetRow += 1;
+                            merged[targetRow] = true;
+                        }
+                        break;
+                    }
+                }
+                if (targetRow != row && board.move(col, targetRow, t)) {
+                    score += board.tile(col, targetRow).value();
+                }
+            }
+        }
+        board.setViewingPerspective(Side.NORTH);
+        return score;
+    }
+
+    /** Tilts BOARD toward SIDE as Model.tilt does now, visiting squares in
+     *  the order ORDERS[SIDE.ordinal()], and returns the score earned. */
+    static int orderedTilt(Board board, Side side, int[][] orders) {
+        int size = board.size();
+        int score = 0;
+        int[] order = orders[side.ordinal()];
+        boolean[] merged = new boolean[size];
+        for (int base = 0; base < order.length; base += size) {
+            Arrays.fill(merged, false);
+            for (int k = 1; k < size; k += 1) {
+                Tile t = board.tileAt(order[base + k]);
+                if (t == null) {
+                    continue;
+                }
+                int target = k;
+                while (target > 0) {
+                    Tile nextTile = board.tileAt(order[base + target - 1]);
+                    if (nextTile == null) {
+                        target -= 1;
+                    } else {
+                        if (nextTile.value() == t.value() && !merged[target - 1]) {
+                            target -= 1;
+                            merged[target] = true;
+                        }
+                        break;
+                    }
+                }
+                int to = order[base + target];
+                if (target != k && board.moveTo(to, t)) {
+                    score += board.tileAt(to).value();
+                }
+            }
+        }
+        return score;
+    }
+
+    /** Returns BATCH random raw value arrays for SIZE x SIZE boards. */
+    private static int[][][] randomBoards(Random random, int size) {
+        int[][][] boards = new int[BATCH][size][size];
+        for (int[][] b : boards) {
+            for (int[] row : b) {
+                for (int c = 0; c < size; c += 1) {
+                    row[c] = random.nextBoolean() ? 0 : 2 << random.nextInt(4);
+                }
+            }
+        }
+        return boards;
+    }
+
+    /** Returns tilts per second toward SIDE with the given KIND of tilt
+     *  (0: perspective, 1: ordered, 2: Model, 3: GridModel) over ROUNDS
+     *  rounds. */
+    private static double tiltsPerSecond(int kind, Side side, int size, int rounds,
+                                         Random random) {
+        long nanos = 0;
+        long sink = 0;
+        for (int r = 0; r < rounds; r += 1) {
+            int[][][] raw = randomBoards(random, size);
+            if (kind <= 1) {
+                Board[] boards = new Board[BATCH];
+                for (int i = 0; i < BATCH; i += 1) {
+                    boards[i] = new Board(raw[i], 0);
+                }
+                int[][] orders = TiltOrder.forSize(size);
+                long start = System.nanoTime();
+                for (Board b : boards) {
+                    sink += kind == 0 ? perspectiveTilt(b, side) : orderedTilt(b, side, orders);
+                }
+                nanos += System.nanoTime() - start;
+            } else if (kind == 2) {
+                Model[] models = new Model[BATCH];
+                for (int i = 0; i < BATCH; i += 1) {
+                    models[i] = new Model(raw[i], 0, 0, false);
+                }
+                long start = System.nanoTime();
+                for (Model m : models) {
+                    sink += m.tilt(side) ? 1 : 0;
+                }
+                nanos += System.nanoTime() - start;
+            } else {
+                GridModel[] grids = new GridModel[BATCH];
+                for (int i = 0; i < BATCH; i += 1) {
+                    grids[i] = new GridModel(raw[i], 0, 0);
+                }
+                long start = System.nanoTime();
+                for (GridModel g : grids) {
+                    sink += g.tilt(side) ? 1 : 0;
+                }
+                nanos += System.nanoTime() - start;
+            }
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+        return (double) BATCH * rounds * 1e9 / nanos;
+    }
+
+    /** Prints tilts per second for each side and approach. ARGS are
+     *  [SIZE [ROUNDS]]. */
+    public static void main(String... args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        Random random = new Random(42);
+        String[] names = { "perspective", "ordered", "Model", "GridModel" };
+
+        /* Warm up every path. */
+        for (int kind = 0; kind < names.length; kind += 1) {
+            for (Side side : Side.values()) {
+                tiltsPerSecond(kind, side, size, rounds / 4 + 1, random);
+            }
+        }
+
+        System.out.printf("%dx%d boards, %d tilts per side%n", size, size, rounds * BATCH);
+        System.out.printf("%8s %14s %14s %9s %14s %14s%n", "side", names[0], names[1],
+                          "speedup", names[2], names[3]);
+        for (Side side : Side.values()) {
+            double[] rates = new double[names.length];
+            for (int kind = 0; kind < names.length; kind += 1) {
+                rates[kind] = tiltsPerSecond(kind, side, size, rounds, random);
+            }
+            System.out.printf("%8s %14.0f %14.0f %8.2fx %14.0f %14.0f%n", side,
+                              rates[0], rates[1], rates[1] / rates[0], rates[2], rates[3]);
+        }
+    }
+}
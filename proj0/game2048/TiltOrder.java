@@ -0,0 +1,51 @@
+package game2048;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/** Precomputed orders in which a tilt visits the squares of a board.
+ *
+ *  Tilting toward a side treats the board as SIZE independent lines
+ *  perpendicular to that side, and walks each line starting from the
+ *  square nearest the side. For a given side and board size, that walk
+ *  is a fixed permutation of the squares, so rather than mapping every
+ *  (column, row) through Side.col and Side.row on each access (as
+ *  Board's viewing perspective does), the permutation is computed once.
+ *  Squares are identified by their index ROW * SIZE + COL in the standard
+ *  orientation, the layout of Board's and GridModel's storage.
+ */
+final class TiltOrder {
+
+    /** Orders already computed, by board size. */
+    private static final ConcurrentHashMap<Integer, int[][]> CACHE =
+        new ConcurrentHashMap<>();
+
+    /** Not instantiable. */
+    private TiltOrder() {
+    }
+
+    /** Returns the orders for a SIZE x SIZE board, indexed by
+     *  Side.ordinal(). For side S, ORDERS[S.ordinal()][L * SIZE + K] is
+     *  the index of the Kth square from S along line L. */
+    static int[][] forSize(int size) {
+        return CACHE.computeIfAbsent(size, TiltOrder::compute);
+    }
+
+    /** Returns the orders for a SIZE x SIZE board. */
+    private static int[][] compute(int size) {
+        Side[] sides = Side.values();
+        int[][] orders = new int[sides.length][size * size];
+        for (Side side : sides) {
+            int[] order = orders[side.ordinal()];
+            for (int line = 0; line < size; line += 1) {
+                for (int k = 0; k < size; k += 1) {
+                    /* Viewed from SIDE, line L is column L and the Kth
+                     * square from the top is row SIZE - 1 - K. */
+                    int row = size - 1 - k;
+                    order[line * size + k] = side.row(line, row, size) * size
+                        + side.col(line, row, size);
+                }
+            }
+        }
+        return orders;
+    }
+}
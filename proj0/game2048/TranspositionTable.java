@@ -0,0 +1,68 @@
+package game2048;
+
+import java.util.Arrays;
+
+/** A fixed-size cache of expectimax values of BitBoard positions, safe to
+ *  share among searching threads without locks.
+ *
+ *  Each slot holds two longs: a DATA word packing the value (as a float)
+ *  and the depth it was searched to, and a CHECK word that is the board
+ *  XORed with DATA. Threads may overwrite one another's slots, and a
+ *  reader may see the two words from different writes, but then CHECK
+ *  XOR DATA will not equal the board being probed and the entry is simply
+ *  treated as missing. Newer entries always replace older ones.
+ */
+class TranspositionTable {
+
+    /** A table with 2 ** BITS slots. */
+    TranspositionTable(int bits) {
+        if (bits < 1 || bits > 28) {
+            throw new IllegalArgumentException("bits out of range: " + bits);
+        }
+        _shift = 64 - bits;
+        _check = new long[1 << bits];
+        _data = new long[1 << bits];
+    }
+
+    /** Returns the number of slots. */
+    int capacity() {
+        return _data.length;
+    }
+
+    /** Returns the slot for BOARD. */
+    private int slot(long board) {
+        return (int) ((board * 0x9E3779B97F4A7C15L) >>> _shift);
+    }
+
+    /** Returns the value stored for BOARD searched to at least DEPTH, or
+     *  NaN if there is none. */
+    double get(long board, int depth) {
+        int i = slot(board);
+        long data = _data[i];
+        if ((_check[i] ^ data) != board || (int) (data >>> 32) < depth || data == 0) {
+            return Double.NaN;
+        }
+        return Float.intBitsToFloat((int) data);
+    }
+
+    /** Records VALUE for BOARD searched to DEPTH > 0. */
+    void put(long board, int depth, double value) {
+        int i = slot(board);
+        long data = (long) depth << 32 | (Float.floatToRawIntBits((float) value) & 0xFFFFFFFFL);
+        _data[i] = data;
+        _check[i] = board ^ data;
+    }
+
+    /** Empties the table. */
+    void clear() {
+        Arrays.fill(_data, 0);
+        Arrays.fill(_check, 0);
+    }
+
+    /** Shift giving a slot from a hashed board. */
+    private final int _shift;
+    /** Board XOR data for each slot. */
+    private final long[] _check;
+    /** Packed depth and value for each slot. */
+    private final long[] _data;
+}
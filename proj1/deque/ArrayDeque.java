@@ -0,0 +1,191 @@
+package deque;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/** Array based deque.
+ *
+ *  Items live in a circular buffer whose length is always a power of two,
+ *  so wrapping an index around the end is a single AND with MASK instead
+ *  of a modulo or a branch. The buffer doubles when full and halves when
+ *  it drops to a quarter full, so every operation is amortized O(1), and
+ *  a deque whose size stays fixed (as in GuitarString) never reallocates.
+ */
+public class ArrayDeque<T> implements Deque<T>, Iterable<T> {
+    /** Smallest buffer length; never shrink below this. */
+    private static final int MIN_CAPACITY = 16;
+
+    private T[] items;
+    /** Always items.length - 1. */
+    private int mask;
+    /** Index of the front item. */
+    private int head;
+    private int size;
+
+    /** Creates an empty deque. */
+    public ArrayDeque() {
+        this(MIN_CAPACITY);
+    }
+
+    /** Creates an empty deque that can hold CAPACITY items before it
+     *  needs to grow. */
+    @SuppressWarnings("unchecked")
+    public ArrayDeque(int capacity) {
+        items = (T[]) new Object[roundUpToPowerOfTwo(capacity)];
+        mask = items.length - 1;
+        head = 0;
+        size = 0;
+    }
+
+    private static int roundUpToPowerOfTwo(int n) {
+        if (n <= MIN_CAPACITY) {
+            return MIN_CAPACITY;
+        }
+        return Integer.highestOneBit(n - 1) << 1;
+    }
+
+    /** Copies the items into a buffer of length CAPACITY, front first. */
+    @SuppressWarnings("unchecked")
+    private void resize(int capacity) {
+        T[] a = (T[]) new Object[capacity];
+        int firstPart = Math.min(size, items.length - head);
+        System.arraycopy(items, head, a, 0, firstPart);
+        System.arraycopy(items, 0, a, firstPart, size - firstPart);
+        items = a;
+        mask = capacity - 1;
+        head = 0;
+    }
+
+    private void shrinkIfSparse() {
+        if (items.length > MIN_CAPACITY && size <= items.length / 4) {
+            resize(items.length / 2);
+        }
+    }
+
+    @Override
+    public void addFirst(T item) {
+        if (size == items.length) {
+            resize(items.length * 2);
+        }
+        head = (head - 1) & mask;
+        items[head] = item;
+        size += 1;
+    }
+
+    @Override
+    public void addLast(T item) {
+        if (size == items.length) {
+            resize(items.length * 2);
+        }
+        items[(head + size) & mask] = item;
+        size += 1;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void printDeque() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < size; i += 1) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(items[(head + i) & mask]);
+        }
+        System.out.println(sb);
+    }
+
+    @Override
+    public T removeFirst() {
+        if (size == 0) {
+            return null;
+        }
+        T x = items[head];
+        items[head] = null;
+        head = (head + 1) & mask;
+        size -= 1;
+        shrinkIfSparse();
+        return x;
+    }
+
+    @Override
+    public T removeLast() {
+        if (size == 0) {
+            return null;
+        }
+        int last = (head + size - 1) & mask;
+        T x = items[last];
+        items[last] = null;
+        size -= 1;
+        shrinkIfSparse();
+        return x;
+    }
+
+    /** Returns the item at INDEX (0 is the front), or null if there is no
+     *  such item. */
+    @Override
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            return null;
+        }
+        return items[(head + index) & mask];
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < size;
+            }
+
+            @Override
+            public T next() {
+                if (i >= size) {
+                    throw new NoSuchElementException();
+                }
+                T x = items[(head + i) & mask];
+                i += 1;
+                return x;
+            }
+        };
+    }
+
+    /** Returns whether O is a Deque with the same items in the same order. */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Deque)) {
+            return false;
+        }
+        Deque<?> other = (Deque<?>) o;
+        if (other.size() != size) {
+            return false;
+        }
+        for (int i = 0; i < size; i += 1) {
+            Object mine = items[(head + i) & mask];
+            Object theirs = other.get(i);
+            if (mine == null ? theirs != null : !mine.equals(theirs)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 1;
+        for (int i = 0; i < size; i += 1) {
+            Object x = items[(head + i) & mask];
+            h = 31 * h + (x == null ? 0 : x.hashCode());
+        }
+        return h;
+    }
+}
@@ -0,0 +1,124 @@
+package deque;
+
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.*;
+
+
+/** Performs some basic array deque tests. */
+public class ArrayDequeTest {
+
+    @Test
+    /* Adds a few things to the deque, checking isEmpty(), size() and get(). */
+    public void addIsEmptySizeTest() {
+        ArrayDeque<String> ad1 = new ArrayDeque<String>();
+
+        assertTrue("A newly initialized ArrayDeque should be empty", ad1.isEmpty());
+        ad1.addFirst("front");
+        assertEquals(1, ad1.size());
+        assertFalse("ad1 should now contain 1 item", ad1.isEmpty());
+
+        ad1.addLast("middle");
+        ad1.addLast("back");
+        assertEquals(3, ad1.size());
+        assertEquals("front", ad1.get(0));
+        assertEquals("middle", ad1.get(1));
+        assertEquals("back", ad1.get(2));
+        assertNull(ad1.get(3));
+        assertNull(ad1.get(-1));
+    }
+
+    @Test
+    /* check if null is return when removing from an empty ArrayDeque. */
+    public void emptyNullReturnTest() {
+        ArrayDeque<Integer> ad1 = new ArrayDeque<Integer>();
+        ad1.addFirst(3);
+        ad1.removeLast();
+
+        assertNull("Should return null when removeFirst is called on an empty Deque,", ad1.removeFirst());
+        assertNull("Should return null when removeLast is called on an empty Deque,", ad1.removeLast());
+        assertEquals(0, ad1.size());
+    }
+
+    @Test
+    /* Wraps around both ends of the buffer many times while growing and shrinking. */
+    public void wrapAroundTest() {
+        ArrayDeque<Integer> ad1 = new ArrayDeque<Integer>();
+        java.util.ArrayDeque<Integer> expected = new java.util.ArrayDeque<Integer>();
+        java.util.Random r = new java.util.Random(61);
+        for (int i = 0; i < 100000; i += 1) {
+            int op = r.nextInt(4);
+            if (op == 0) {
+                ad1.addFirst(i);
+                expected.addFirst(i);
+            } else if (op == 1) {
+                ad1.addLast(i);
+                expected.addLast(i);
+            } else if (op == 2) {
+                assertEquals(expected.pollFirst(), ad1.removeFirst());
+            } else {
+                assertEquals(expected.pollLast(), ad1.removeLast());
+            }
+            assertEquals(expected.size(), ad1.size());
+            if (!expected.isEmpty()) {
+                assertEquals(expected.peekFirst(), ad1.get(0));
+                assertEquals(expected.peekLast(), ad1.get(ad1.size() - 1));
+            }
+        }
+    }
+
+    @Test
+    /* Add large number of elements to deque; check if order is correct. */
+    public void bigADequeTest() {
+        ArrayDeque<Integer> ad1 = new ArrayDeque<Integer>();
+        for (int i = 0; i < 1000000; i++) {
+            ad1.addLast(i);
+        }
+
+        for (double i = 0; i < 500000; i++) {
+            assertEquals("Should have the same value", i, (double) ad1.removeFirst(), 0.0);
+        }
+
+        for (double i = 999999; i > 500000; i--) {
+            assertEquals("Should have the same value", i, (double) ad1.removeLast(), 0.0);
+        }
+    }
+
+    @Test
+    public void iteratorAndEqualsTest() {
+        ArrayDeque<Integer> ad1 = new ArrayDeque<Integer>();
+        ArrayDeque<Integer> ad2 = new ArrayDeque<Integer>(100);
+        for (int i = 0; i < 20; i++) {
+            ad1.addFirst(i);
+            ad2.addLast(19 - i);
+        }
+        assertEquals(ad1, ad2);
+        assertEquals(ad1.hashCode(), ad2.hashCode());
+
+        int expected = 19;
+        for (int x : ad1) {
+            assertEquals(expected, x);
+            expected -= 1;
+        }
+        ad2.removeLast();
+        assertNotEquals(ad1, ad2);
+    }
+
+    @Test
+    public void exhaustedIteratorThrowsTest() {
+        ArrayDeque<Integer> ad1 = new ArrayDeque<Integer>();
+        ad1.addLast(1);
+        Iterator<Integer> it = ad1.iterator();
+        assertEquals(1, (int) it.next());
+        assertFalse(it.hasNext());
+        try {
+            it.next();
+            fail("next() past the end should throw");
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package deque;
+
+/** A double-ended queue: items can be added and removed at both ends. */
+public interface Deque<T> {
+    void addFirst(T item);
+    void addLast(T item);
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    int size();
+    void printDeque();
+    T removeFirst();
+    T removeLast();
+    T get(int index);
+}
@@ -0,0 +1,142 @@
+package gh2;
+
+import edu.princeton.cs.algs4.StdAudio;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Decouples key handling from sound for GuitarHeroLite.
+ *
+ * The input thread calls pluck(), which only records the event in a
+ * lock-free PluckQueue. A separate audio thread repeatedly drains the
+ * queue, renders a fixed-size buffer from every string, and hands the
+ * buffer to the output. Plucks therefore take effect at the next buffer
+ * boundary, however slowly the input thread gets around to polling.
+ *
+ * The audio thread also measures input-to-sound latency (from pluck() to
+ * the hand-off of the buffer in which the pluck is first heard) and
+ * counts underruns: buffers that were ready later than the output needed
+ * them to keep playing without a gap.
+ */
+public class AudioPipeline {
+    /** Samples per buffer; 256 samples is about 5.8 ms at 44.1 kHz. */
+    public static final int BUFFER_SIZE = 256;
+
+    private final GuitarString[] strings;
+    private final Consumer<double[]> out;
+    private final PluckQueue queue = new PluckQueue(1024);
+    private final Thread audioThread;
+    private volatile boolean running;
+
+    /* Statistics. Written only by the audio thread. */
+    private volatile long buffers;
+    private volatile long underruns;
+    private volatile long plucks;
+    private volatile long totalLatencyNanos;
+    private volatile long maxLatencyNanos;
+    /** Plucks lost because the queue was full. Written only by the input
+     *  thread. */
+    private volatile long dropped;
+
+    /** Creates a pipeline that plays STRINGS on standard audio. */
+    public AudioPipeline(GuitarString[] strings) {
+        this(strings, StdAudio::play);
+    }
+
+    /** Creates a pipeline that passes each rendered buffer of STRINGS to
+     *  OUT, which must not keep a reference to it. */
+    public AudioPipeline(GuitarString[] strings, Consumer<double[]> out) {
+        this.strings = strings;
+        this.out = out;
+        audioThread = new Thread(this::renderLoop, "gh2-audio");
+        audioThread.setDaemon(true);
+    }
+
+    public void start() {
+        running = true;
+        audioThread.start();
+    }
+
+    /** Stops the audio thread and waits for it to finish. */
+    public void stop() throws InterruptedException {
+        running = false;
+        audioThread.join();
+    }
+
+    /** Requests a pluck of string I. Input thread only; never blocks. */
+    public void pluck(int i) {
+        if (!queue.offer(i, System.nanoTime())) {
+            dropped++;
+        }
+    }
+
+    private void renderLoop() {
+        double[] buffer = new double[BUFFER_SIZE];
+        long[] pendingTimes = new long[1024];
+        int[] pending = new int[1];
+        PluckQueue.Handler handler = (string, enqueuedNanos) -> {
+            strings[string].pluck();
+            if (pending[0] < pendingTimes.length) {
+                pendingTimes[pending[0]++] = enqueuedNanos;
+            }
+        };
+
+        double nanosPerBuffer = 1e9 * BUFFER_SIZE / StdAudio.SAMPLE_RATE;
+        long start = System.nanoTime();
+        long played = 0;
+        while (running) {
+            queue.drain(handler);
+            for (GuitarString s : strings) {
+                if (!s.isSilent(GuitarPlayer.SILENCE)) {
+                    s.render(buffer, 0, BUFFER_SIZE, 1.0);
+                }
+            }
+
+            long now = System.nanoTime();
+            /* The output has played PLAYED buffers since START; if we are
+             * more than a buffer behind that, it has run dry. */
+            if (now - start > (played + 1) * nanosPerBuffer) {
+                underruns++;
+                start = now - (long) (played * nanosPerBuffer);
+            }
+            out.accept(buffer);
+            played++;
+            buffers++;
+
+            for (int k = 0; k < pending[0]; k++) {
+                long latency = now - pendingTimes[k];
+                totalLatencyNanos += latency;
+                if (latency > maxLatencyNanos) {
+                    maxLatencyNanos = latency;
+                }
+            }
+            plucks += pending[0];
+            pending[0] = 0;
+            Arrays.fill(buffer, 0.0);
+        }
+    }
+
+    public long buffersRendered() {
+        return buffers;
+    }
+
+    public long underruns() {
+        return underruns;
+    }
+
+    public long droppedPlucks() {
+        return dropped;
+    }
+
+    /** Returns the mean input-to-sound latency in milliseconds. */
+    public double meanLatencyMillis() {
+        long n = plucks;
+        return n == 0 ? 0.0 : totalLatencyNanos / 1e6 / n;
+    }
+
+    /** Returns the worst input-to-sound latency seen, in milliseconds. */
+    public double maxLatencyMillis() {
+        return maxLatencyNanos / 1e6;
+    }
+}
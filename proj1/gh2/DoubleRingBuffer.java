@@ -0,0 +1,161 @@
+package gh2;
+
+/**
+ * A fixed-capacity FIFO queue of primitive doubles.
+ *
+ * Unlike a Deque<Double>, nothing is boxed, so enqueueing a sample never
+ * allocates. Indices wrap with a compare-and-reset rather than a modulo,
+ * since the capacity (the string's period in samples) is not a power of two.
+ */
+public class DoubleRingBuffer {
+    private final double[] rb;
+    /** Index of the front item. */
+    private int first;
+    /** Index one past the last item. */
+    private int last;
+    private int fillCount;
+
+    /** Creates an empty ring buffer that holds up to CAPACITY doubles. */
+    public DoubleRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        rb = new double[capacity];
+        first = 0;
+        last = 0;
+        fillCount = 0;
+    }
+
+    public int capacity() {
+        return rb.length;
+    }
+
+    public int fillCount() {
+        return fillCount;
+    }
+
+    public boolean isEmpty() {
+        return fillCount == 0;
+    }
+
+    public boolean isFull() {
+        return fillCount == rb.length;
+    }
+
+    /** Adds X to the back. */
+    public void enqueue(double x) {
+        if (fillCount == rb.length) {
+            throw new RuntimeException("Ring buffer overflow");
+        }
+        rb[last] = x;
+        last += 1;
+        if (last == rb.length) {
+            last = 0;
+        }
+        fillCount += 1;
+    }
+
+    /** Removes and returns the front item. */
+    public double dequeue() {
+        if (fillCount == 0) {
+            throw new RuntimeException("Ring buffer underflow");
+        }
+        double x = rb[first];
+        first += 1;
+        if (first == rb.length) {
+            first = 0;
+        }
+        fillCount -= 1;
+        return x;
+    }
+
+    /** Returns the front item without removing it. */
+    public double peek() {
+        if (fillCount == 0) {
+            throw new RuntimeException("Ring buffer underflow");
+        }
+        return rb[first];
+    }
+
+    /** Returns the item INDEX places behind the front. */
+    public double get(int index) {
+        if (index < 0 || index >= fillCount) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + fillCount);
+        }
+        int i = first + index;
+        if (i >= rb.length) {
+            i -= rb.length;
+        }
+        return rb[i];
+    }
+
+    /** Replaces the contents with capacity() items of SRC, starting at
+     *  SRCPOS and wrapping around to the start of SRC as needed, leaving
+     *  the buffer full. */
+    public void fill(double[] src, int srcPos) {
+        for (int n = 0; n < rb.length; srcPos = 0) {
+            int chunk = Math.min(rb.length - n, src.length - srcPos);
+            System.arraycopy(src, srcPos, rb, n, chunk);
+            n += chunk;
+        }
+        first = 0;
+        last = 0;
+        fillCount = rb.length;
+    }
+
+    /** Empties the buffer and then fills it to capacity with X. */
+    public void fill(double x) {
+        java.util.Arrays.fill(rb, x);
+        first = 0;
+        last = 0;
+        fillCount = rb.length;
+    }
+
+    /**
+     * One Karplus-Strong step on a full buffer: removes the front item and
+     * enqueues DECAY times the average of it and the new front. Equivalent
+     * to dequeue() followed by enqueue(), but the new item simply goes
+     * into the slot the old front vacated.
+     */
+    void ksStep(double decay) {
+        int next = first + 1;
+        if (next == rb.length) {
+            next = 0;
+        }
+        rb[first] = decay * 0.5 * (rb[first] + rb[next]);
+        first = next;
+        last = next;
+    }
+
+    /**
+     * Performs N ksStep(DECAY)s on a full buffer, adding GAIN times the new
+     * front item after each one into OUT[OFFSET], OUT[OFFSET + 1], ....
+     * The wrap-around check is hoisted out of the inner loop, which runs
+     * straight through the array until it reaches the last slot.
+     */
+    void ksRender(double decay, double[] out, int offset, int n, double gain) {
+        double[] buf = rb;
+        int cap = buf.length;
+        double halfDecay = decay * 0.5;
+        int f = first;
+        int o = offset;
+        int end = offset + n;
+        while (o < end) {
+            int run = Math.min(end - o, cap - 1 - f);
+            for (int k = 0; k < run; k += 1) {
+                buf[f] = halfDecay * (buf[f] + buf[f + 1]);
+                f += 1;
+                out[o] += gain * buf[f];
+                o += 1;
+            }
+            if (o < end) {
+                buf[f] = halfDecay * (buf[f] + buf[0]);
+                f = 0;
+                out[o] += gain * buf[0];
+                o += 1;
+            }
+        }
+        first = f;
+        last = f;
+    }
+}
@@ -1,5 +1,4 @@
 package gh2;
-import edu.princeton.cs.algs4.StdAudio;
 import edu.princeton.cs.algs4.StdDraw;
 
 /**
@@ -14,28 +13,36 @@ public class GuitarHeroLite {
         GuitarString stringA = new GuitarString(CONCERT_A);
         GuitarString stringC = new GuitarString(CONCERT_C);
 
+        /* sound is rendered on its own thread; this one only reads keys */
+        AudioPipeline audio = new AudioPipeline(new GuitarString[] {stringA, stringC});
+        audio.start();
+
+        long lastReport = System.nanoTime();
         while (true) {
 
             /* check if the user has typed a key; if so, process it */
             if (StdDraw.hasNextKeyTyped()) {
                 char key = StdDraw.nextKeyTyped();
                 if (key == 'a') {
-                    stringA.pluck();
+                    audio.pluck(0);
                 } else if (key == 'c') {
-                    stringC.pluck();
+                    audio.pluck(1);
                 }
+                continue;
             }
 
-            /* compute the superposition of samples */
-            double sample = stringA.sample() + stringC.sample();
-
-            /* play the sample on standard audio */
-            StdAudio.play(sample);
-
-            /* advance the simulation of each guitar string by one step */
-            stringA.tic();
-            stringC.tic();
+            long now = System.nanoTime();
+            if (now - lastReport > 5_000_000_000L) {
+                System.out.printf("latency %.1f ms mean, %.1f ms max; %d underruns, %d dropped\n",
+                                  audio.meanLatencyMillis(), audio.maxLatencyMillis(),
+                                  audio.underruns(), audio.droppedPlucks());
+                lastReport = now;
+            }
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                return;
+            }
         }
     }
 }
-
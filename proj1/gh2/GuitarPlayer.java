@@ -2,10 +2,14 @@ package gh2;
 
 import edu.princeton.cs.algs4.StdAudio;
 
-import javax.sound.midi.*;
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MidiSystem;
+import javax.sound.midi.Sequence;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.function.Consumer;
 
 /**
  * Plays guitar from MIDI files.
@@ -13,9 +17,26 @@ import java.io.InputStream;
  * @author Eli Lipsitz
  */
 public class GuitarPlayer {
+    /** Number of samples rendered and handed to the output at a time. */
+    private static final int BLOCK_SIZE = 2048;
+    /** Strings whose samples cannot exceed this are not rendered. */
+    static final double SILENCE = 1e-4;
+
     private Sequence sequence = null;
+    private MidiEventIndex index = null;
     private GuitarString[] strings;
     private double[] vol;
+    private double[] block;
+    private int blockFill;
+
+    /** The strings that may currently make sound, in active[0 .. activeCount).
+     *  Only these are visited when rendering. */
+    private int[] active;
+    private int activeCount;
+    /** Index of each string in ACTIVE, or -1 if it is not there. */
+    private int[] slot;
+    /** Most strings that may sound at once. */
+    private int polyphony = 128;
 
     public GuitarPlayer(InputStream source) {
         try {
@@ -33,6 +54,18 @@ public class GuitarPlayer {
         }
     }
 
+    /**
+     * Limits the number of strings that can sound at once to MAXVOICES.
+     * When a note starts while that many are sounding, the quietest one
+     * is muted to make room for it.
+     */
+    public void setPolyphony(int maxVoices) {
+        if (maxVoices < 1 || maxVoices > 128) {
+            throw new IllegalArgumentException("polyphony must be in [1, 128]: " + maxVoices);
+        }
+        polyphony = maxVoices;
+    }
+
     private void initialize() {
         strings = new GuitarString[128];
         vol = new double[128];
@@ -40,101 +73,170 @@ public class GuitarPlayer {
             strings[i] = new GuitarString(440.0 * Math.pow(2.0, (i - 69.0) / 12.0));
             vol[i] = 0.0;
         }
+        block = new double[BLOCK_SIZE];
+        blockFill = 0;
+        active = new int[strings.length];
+        activeCount = 0;
+        slot = new int[strings.length];
+        Arrays.fill(slot, -1);
     }
 
-    private void tic() {
-        for (int i = 0; i < strings.length; i++) {
-            if (vol[i] > 0.0) {
-                strings[i].tic();
+    private void noteOn(int note, int velocity) {
+        vol[note] = velocity / 127.0;
+        strings[note].pluck();
+        if (vol[note] == 0.0) {
+            deactivate(note);
+        } else if (slot[note] < 0) {
+            if (activeCount == polyphony) {
+                stealVoice();
             }
+            slot[note] = activeCount;
+            active[activeCount] = note;
+            activeCount++;
         }
     }
 
-    private double sample() {
-        double sum = 0.0f;
-        for (int i = 0; i < strings.length; i++) {
-            sum += vol[i] * strings[i].sample();
-        }
-        return sum;
+    private void noteOff(int note) {
+        vol[note] = 0.0;
+        deactivate(note);
     }
 
-    public void play() {
-        if (sequence == null) {
+    /** Removes NOTE from ACTIVE, if it is there, by moving the last active
+     *  string into its place. */
+    private void deactivate(int note) {
+        int k = slot[note];
+        if (k < 0) {
             return;
         }
+        activeCount--;
+        int last = active[activeCount];
+        active[k] = last;
+        slot[last] = k;
+        slot[note] = -1;
+    }
 
-        System.out.println("starting performance...");
-        initialize();
-        double bpm = 120;
-        double samplesPerTick = StdAudio.SAMPLE_RATE * (60.0 / (sequence.getResolution() * bpm));
-
-        Track[] tracks = sequence.getTracks();
-        Track track = sequence.createTrack();
-        int maxSize = 0;
-        int lead = 0;
-        for (int i = 0; i < tracks.length; i++) {
-            for (int j = 0; j < tracks[i].size(); j++) {
-                track.add(tracks[i].get(j));
+    /** Mutes the active string that is currently the quietest. */
+    private void stealVoice() {
+        int victim = active[0];
+        double quietest = Double.MAX_VALUE;
+        for (int k = 0; k < activeCount; k++) {
+            int note = active[k];
+            double loudness = vol[note] * strings[note].amplitude();
+            if (loudness < quietest) {
+                quietest = loudness;
+                victim = note;
             }
         }
+        noteOff(victim);
+    }
 
-        long tick = 0;
-        for (int i = 0; i < track.size(); i++) {
-            MidiEvent event = track.get(i);
-            MidiMessage msg = event.getMessage();
-            byte[] data = msg.getMessage();
-
-            if (msg instanceof MetaMessage) {
-                MetaMessage mm = (MetaMessage) msg;
-                if (mm.getType() == 0x51) {
-                    // set tempo
-                    data = mm.getData();
-                    int tempo = (data[0] & 0xff) << 16 | (data[1] & 0xff) << 8 | (data[2] & 0xff);
-                    bpm = 60000000.0 / tempo;
-                    samplesPerTick = StdAudio.SAMPLE_RATE
-                        * (60.0 / (sequence.getResolution() * bpm));
-                } else if (mm.getType() == 0x05) {
-                    // lyrics
-                    data = mm.getData();
-                    String lyrics = new String(data);
-                    lyrics = lyrics.replace("\r", "\r\n");
-                    System.out.print(lyrics);
+    /**
+     * Advances every active string N samples, mixing the result into
+     * BLOCK and passing BLOCK to OUT each time it fills up. Strings that
+     * have decayed below SILENCE are dropped from the active list, so the
+     * cost depends on the number of notes sounding, not on 128.
+     */
+    private void advance(int n, Consumer<double[]> out) {
+        while (n > 0) {
+            int chunk = Math.min(n, block.length - blockFill);
+            int k = 0;
+            while (k < activeCount) {
+                int note = active[k];
+                if (strings[note].isSilent(SILENCE)) {
+                    deactivate(note);
+                } else {
+                    strings[note].render(block, blockFill, chunk, vol[note]);
+                    k++;
                 }
-                continue;
             }
-
-            if (event.getTick() > tick) {
-                int samplesToSkip = (int) ((event.getTick() - tick) * samplesPerTick);
-                for (int j = 0; j < samplesToSkip; j++) {
-                    tic();
-                    StdAudio.play(sample());
-                }
-                tick = event.getTick();
+            blockFill += chunk;
+            n -= chunk;
+            if (blockFill == block.length) {
+                out.accept(block);
+                Arrays.fill(block, 0.0);
+                blockFill = 0;
             }
+        }
+    }
 
-            int j = 0;
-            while (j < data.length - 2) {
-                int s = data[j++] & 0xFF;
-
-                if (s >= 0x80 && s <= 0x8F) {
-                    // note off
-                    int note = data[j++] & 0xFF;
-                    int vel = data[j++] & 0xFF;
-                    vol[note] = 0.0;
-                } else if (s >= 0x90 && s <= 0x9F) {
-                    // note on?
-                    int note = data[j++] & 0xFF;
-                    int vel = data[j++] & 0xFF;
-                    vol[note] = vel / 127.0;
-                    strings[note].pluck();
-                } else {
-                    // status
-                    int d = data[j++] & 0xFF;
-                    int d2 = data[j++] & 0xFF;
-                }
-            }
+    /** Passes whatever is left in BLOCK to OUT. */
+    private void flush(Consumer<double[]> out) {
+        if (blockFill > 0) {
+            out.accept(Arrays.copyOf(block, blockFill));
+            Arrays.fill(block, 0.0);
+            blockFill = 0;
         }
+    }
 
+    /** Returns the event index for the sequence, building it the first
+     *  time it is needed and reusing it for every later performance. */
+    private MidiEventIndex index() {
+        if (index == null) {
+            index = new MidiEventIndex(sequence);
+        }
+        return index;
+    }
+
+    public void play() {
+        if (sequence == null) {
+            return;
+        }
+
+        System.out.println("starting performance...");
+        perform(StdAudio::play, 0, true);
         System.out.println("please clap");
     }
+
+    /**
+     * Renders the whole song without playing it, passing each block of
+     * samples to OUT as it is produced, and returns the number of samples
+     * rendered. OUT must not keep a reference to the array it is given.
+     */
+    public long render(Consumer<double[]> out) {
+        return render(out, 0);
+    }
+
+    /**
+     * Like render(OUT), but starts at sample offset START. Notes struck
+     * before START are not heard.
+     */
+    public long render(Consumer<double[]> out, int start) {
+        if (sequence == null) {
+            return 0;
+        }
+        return perform(out, start, false);
+    }
+
+    private long perform(Consumer<double[]> out, int start, boolean showLyrics) {
+        initialize();
+        MidiEventIndex events = index();
+        int pos = start;
+        for (int i = events.firstAtOrAfter(start); i < events.size(); i++) {
+            int next = events.position(i);
+            if (next > pos) {
+                advance(next - pos, out);
+                pos = next;
+            }
+            switch (events.type(i)) {
+                case MidiEventIndex.NOTE_ON:
+                    noteOn(events.note(i), events.velocity(i));
+                    break;
+                case MidiEventIndex.NOTE_OFF:
+                    noteOff(events.note(i));
+                    break;
+                default:
+                    if (showLyrics) {
+                        System.out.print(events.lyric(i));
+                    }
+                    break;
+            }
+        }
+        if (events.length() > pos) {
+            advance(events.length() - pos, out);
+            pos = events.length();
+        }
+
+        flush(out);
+        return pos - start;
+    }
 }
@@ -0,0 +1,30 @@
+package gh2;
+
+import java.io.IOException;
+
+/**
+ * Renders TTFAF without an audio device and reports the real-time factor:
+ * seconds of audio produced per second of wall-clock time.
+ * The same player is reused for every run, so only the first run pays
+ * for building the MidiEventIndex.
+ * Usage: java gh2.GuitarPlayerBenchmark [runs] [polyphony]
+ */
+public class GuitarPlayerBenchmark {
+    public static void main(String[] args) throws IOException {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int polyphony = args.length > 1 ? Integer.parseInt(args[1]) : 128;
+
+        System.out.printf("%8s %14s %12s %14s\n", "run", "audio (s)", "time (s)", "real-time x");
+        System.out.printf("----------------------------------------------------\n");
+        GuitarPlayer player = new GuitarPlayer(TTFAF.open());
+        player.setPolyphony(polyphony);
+        for (int run = 1; run <= runs; run += 1) {
+            double[] sink = new double[1];
+            long start = System.nanoTime();
+            long samples = player.render(block -> sink[0] += block[0]);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            double audio = samples / 44100.0;
+            System.out.printf("%8d %14.1f %12.3f %14.1f\n", run, audio, seconds, audio / seconds);
+        }
+    }
+}
@@ -1,10 +1,8 @@
 package gh2;
 
-// TODO: uncomment the following import once you're ready to start this portion
-// import deque.Deque;
-// TODO: maybe more imports
+import deque.ArrayDeque;
+import deque.Deque;
 
-//Note: This file will not compile until you complete the Deque implementations
 public class GuitarString {
     /** Constants. Do not change. In case you're curious, the keyword final
      * means the values cannot be changed at runtime. We'll discuss this and
@@ -12,44 +10,126 @@ public class GuitarString {
     private static final int SR = 44100;      // Sampling Rate
     private static final double DECAY = .996; // energy decay factor
 
-    /* Buffer for storing sound data. */
-    // TODO: uncomment the following line once you're ready to start this portion
-    // private Deque<Double> buffer;
+    /* Buffer for storing sound data, when built on a Deque. Boxes a Double
+     * on every tic(), so it is only used when asked for explicitly. */
+    private Deque<Double> buffer;
+
+    /* Buffer for storing sound data otherwise. */
+    private DoubleRingBuffer samples;
+
+    /* Number of samples in the buffer. */
+    private int period;
+
+    /* Upper bound on the magnitude of every sample in the buffer. Averaging
+     * never increases the largest magnitude, and after each full period
+     * every sample has been replaced by DECAY times such an average. */
+    private double peak;
+
+    /* Tics since PEAK was last multiplied by DECAY. */
+    private int phase;
 
     /* Create a guitar string of the given frequency.  */
     public GuitarString(double frequency) {
-        // TODO: Create a buffer with capacity = SR / frequency. You'll need to
-        //       cast the result of this division operation into an int. For
-        //       better accuracy, use the Math.round() function before casting.
-        //       Your should initially fill your buffer array with zeros.
+        this(frequency, false);
+    }
+
+    /* Create a guitar string of the given frequency, storing its samples
+     * in a Deque<Double> if USEDEQUE, or in a primitive ring buffer. */
+    public GuitarString(double frequency, boolean useDeque) {
+        period = (int) Math.round(SR / frequency);
+        if (useDeque) {
+            buffer = new ArrayDeque<>(period);
+            for (int i = 0; i < period; i += 1) {
+                buffer.addLast(0.0);
+            }
+        } else {
+            samples = new DoubleRingBuffer(period);
+            samples.fill(0.0);
+        }
+        peak = 0.0;
+        phase = 0;
     }
 
 
     /* Pluck the guitar string by replacing the buffer with white noise. */
     public void pluck() {
-        // TODO: Dequeue everything in buffer, and replace with random numbers
-        //       between -0.5 and 0.5. You can get such a number by using:
-        //       double r = Math.random() - 0.5;
-        //
-        //       Make sure that your random numbers are different from each
-        //       other. This does not mean that you need to check that the numbers
-        //       are different from each other. It means you should repeatedly call
-        //       Math.random() - 0.5 to generate new random numbers for each array index.
+        pluck(NoiseTable.forCurrentThread());
+    }
+
+    /* Pluck the guitar string by replacing the buffer with a window of
+     * NOISE. This is a single array copy rather than a call to the random
+     * number generator per sample, and plucking two strings of the same
+     * frequency with tables built from the same seed gives the same sound.
+     * Strings longer than the table repeat it. */
+    public void pluck(NoiseTable noise) {
+        peak = 0.5;
+        phase = 0;
+        int offset = noise.nextOffset(period);
+        if (samples != null) {
+            samples.fill(noise.samples(), offset);
+            return;
+        }
+        double[] table = noise.samples();
+        for (int i = 0; i < period; i += 1) {
+            buffer.removeFirst();
+            buffer.addLast(table[(offset + i) & (NoiseTable.SIZE - 1)]);
+        }
     }
 
     /* Advance the simulation one time step by performing one iteration of
      * the Karplus-Strong algorithm.
      */
     public void tic() {
-        // TODO: Dequeue the front sample and enqueue a new sample that is
-        //       the average of the two multiplied by the DECAY factor.
-        //       **Do not call StdAudio.play().**
+        advancePhase(1);
+        if (samples != null) {
+            samples.ksStep(DECAY);
+            return;
+        }
+        double front = buffer.removeFirst();
+        buffer.addLast(DECAY * 0.5 * (front + buffer.get(0)));
     }
 
     /* Return the double at the front of the buffer. */
     public double sample() {
-        // TODO: Return the correct thing.
-        return 0;
+        if (samples != null) {
+            return samples.peek();
+        }
+        return buffer.get(0);
+    }
+
+    /* Advance the simulation N time steps, adding GAIN * sample() after
+     * each step into OUT[OFFSET], ..., OUT[OFFSET + N - 1]. Produces the
+     * same result as N rounds of tic() followed by sample(). */
+    public void render(double[] out, int offset, int n, double gain) {
+        if (samples == null) {
+            for (int i = 0; i < n; i += 1) {
+                tic();
+                out[offset + i] += gain * sample();
+            }
+            return;
+        }
+        advancePhase(n);
+        samples.ksRender(DECAY, out, offset, n, gain);
+    }
+
+    /* Return whether no sample of this string can exceed EPSILON in
+     * magnitude, now or at any later time until the next pluck(). */
+    public boolean isSilent(double epsilon) {
+        return peak < epsilon;
+    }
+
+    /* Return an upper bound on the magnitude of the samples this string
+     * can produce until the next pluck(). */
+    public double amplitude() {
+        return peak;
+    }
+
+    private void advancePhase(int n) {
+        phase += n;
+        if (phase >= period) {
+            int periods = phase / period;
+            phase -= periods * period;
+            peak *= periods == 1 ? DECAY : Math.pow(DECAY, periods);
+        }
     }
 }
-    // TODO: Remove all comments that say TODO when you're done.
@@ -0,0 +1,64 @@
+package gh2;
+
+/**
+ * Compares tics per second of GuitarString built on a primitive
+ * DoubleRingBuffer against one built on Deque<Double>, using the same
+ * 128-string layout as GuitarPlayer.
+ */
+public class GuitarStringBenchmark {
+    private static final int STRINGS = 128;
+
+    private static GuitarString[] makeStrings(boolean useDeque) {
+        GuitarString[] strings = new GuitarString[STRINGS];
+        for (int i = 0; i < STRINGS; i += 1) {
+            strings[i] = new GuitarString(440.0 * Math.pow(2.0, (i - 69.0) / 12.0), useDeque);
+            strings[i].pluck();
+        }
+        return strings;
+    }
+
+    /** Runs SAMPLES rounds of tic() and sample() over every string and
+     *  returns the number of tics per second. */
+    private static double ticsPerSecond(GuitarString[] strings, int samples) {
+        double sink = 0;
+        long start = System.nanoTime();
+        for (int t = 0; t < samples; t += 1) {
+            for (GuitarString s : strings) {
+                s.tic();
+                sink += s.sample();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (sink == 42) {
+            System.out.println();
+        }
+        return (double) samples * strings.length / seconds;
+    }
+
+    public static void main(String[] args) {
+        int samples = args.length > 0 ? Integer.parseInt(args[0]) : 44100 * 10;
+
+        /* warm up both paths so the JIT has compiled them */
+        ticsPerSecond(makeStrings(true), 44100);
+        ticsPerSecond(makeStrings(false), 44100);
+
+        double boxed = ticsPerSecond(makeStrings(true), samples);
+        double primitive = ticsPerSecond(makeStrings(false), samples);
+
+        System.out.printf("%20s %16s %12s\n", "buffer", "tics/sec", "speedup");
+        System.out.printf("--------------------------------------------------\n");
+        System.out.printf("%20s %16.0f %12.2f\n", "Deque<Double>", boxed, 1.0);
+        System.out.printf("%20s %16.0f %12.2f\n", "DoubleRingBuffer", primitive, primitive / boxed);
+        System.out.printf("real-time strings at 44.1 kHz: %.0f (deque), %.0f (ring)\n",
+                          boxed / 44100, primitive / 44100);
+
+        GuitarString[] strings = makeStrings(false);
+        int plucks = 1_000_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < plucks; i += 1) {
+            strings[i & (STRINGS - 1)].pluck();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("plucks/sec (all 128 notes, noise table): %.0f\n", plucks / seconds);
+    }
+}
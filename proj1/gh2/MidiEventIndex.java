@@ -0,0 +1,165 @@
+package gh2;
+
+import edu.princeton.cs.algs4.StdAudio;
+
+import javax.sound.midi.MetaMessage;
+import javax.sound.midi.MidiEvent;
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.Sequence;
+import javax.sound.midi.Track;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The note and lyric events of a MIDI Sequence, merged across tracks,
+ * sorted by time, and converted from ticks to sample offsets.
+ *
+ * Each event is packed into one long: the sample offset in the high 32
+ * bits, then the type in a byte, then the note and velocity a byte each
+ * or, for a lyric, its index in 24 bits. Tempo changes are
+ * folded into the sample offsets, so playing the song is a linear scan
+ * of a long[] with no MidiMessage decoding or allocation.
+ */
+public class MidiEventIndex {
+    public static final int NOTE_ON = 0;
+    public static final int NOTE_OFF = 1;
+    /** Note and velocity hold the index of the text in LYRICS instead. */
+    public static final int LYRIC = 2;
+
+    /** Most lyric events whose indices fit in an event. */
+    private static final int MAX_LYRICS = 1 << 24;
+
+    private final long[] events;
+    private final String[] lyrics;
+    /** Sample offset of the last event. */
+    private final int length;
+
+    /** Builds the index for SEQUENCE. Event order and timing follow what
+     *  GuitarPlayer did when it decoded the Sequence during playback. */
+    public MidiEventIndex(Sequence sequence) {
+        List<MidiEvent> merged = new ArrayList<>();
+        for (Track track : sequence.getTracks()) {
+            for (int i = 0; i < track.size(); i += 1) {
+                merged.add(track.get(i));
+            }
+        }
+        /* Stable, so ties keep track order, as with Track.add. */
+        merged.sort(Comparator.comparingLong(MidiEvent::getTick));
+
+        long[] packed = new long[merged.size()];
+        List<String> text = new ArrayList<>();
+        int count = 0;
+
+        double samplesPerTick = samplesPerTick(sequence, 120);
+        long tick = 0;
+        int pos = 0;
+        for (MidiEvent event : merged) {
+            MidiMessage msg = event.getMessage();
+            if (msg instanceof MetaMessage) {
+                MetaMessage mm = (MetaMessage) msg;
+                if (mm.getType() == 0x51) {
+                    // set tempo
+                    byte[] data = mm.getData();
+                    int tempo = (data[0] & 0xff) << 16 | (data[1] & 0xff) << 8 | (data[2] & 0xff);
+                    samplesPerTick = samplesPerTick(sequence, 60000000.0 / tempo);
+                } else if (mm.getType() == 0x05) {
+                    // lyrics
+                    int k = text.size();
+                    if (k == MAX_LYRICS) {
+                        throw new IllegalArgumentException("more than " + MAX_LYRICS
+                                                           + " lyric events");
+                    }
+                    text.add(new String(mm.getData()).replace("\r", "\r\n"));
+                    packed = ensureCapacity(packed, count);
+                    packed[count++] = pack(pos, LYRIC, k >> 8, k & 0xFF);
+                }
+                continue;
+            }
+
+            if (event.getTick() > tick) {
+                pos += (int) ((event.getTick() - tick) * samplesPerTick);
+                tick = event.getTick();
+            }
+
+            byte[] data = msg.getMessage();
+            int j = 0;
+            while (j < data.length - 2) {
+                int s = data[j++] & 0xFF;
+                int note = data[j++] & 0xFF;
+                int vel = data[j++] & 0xFF;
+                if (s >= 0x80 && s <= 0x9F) {
+                    packed = ensureCapacity(packed, count);
+                    packed[count++] = pack(pos, s >= 0x90 ? NOTE_ON : NOTE_OFF, note, vel);
+                }
+            }
+        }
+        events = Arrays.copyOf(packed, count);
+        lyrics = text.toArray(new String[0]);
+        length = pos;
+    }
+
+    private static double samplesPerTick(Sequence sequence, double bpm) {
+        return StdAudio.SAMPLE_RATE * (60.0 / (sequence.getResolution() * bpm));
+    }
+
+    private static long[] ensureCapacity(long[] a, int count) {
+        return count < a.length ? a : Arrays.copyOf(a, Math.max(16, count * 2));
+    }
+
+    private static long pack(int position, int type, int note, int velocity) {
+        return (long) position << 32 | (long) type << 24 | note << 8 | velocity;
+    }
+
+    /** Returns the number of events. */
+    public int size() {
+        return events.length;
+    }
+
+    /** Returns the sample offset of the last event, i.e. the length of
+     *  the song in samples. */
+    public int length() {
+        return length;
+    }
+
+    /** Returns the sample offset at which event I takes effect. */
+    public int position(int i) {
+        return (int) (events[i] >>> 32);
+    }
+
+    /** Returns NOTE_ON, NOTE_OFF or LYRIC. */
+    public int type(int i) {
+        return (int) (events[i] >> 24) & 0xFF;
+    }
+
+    public int note(int i) {
+        return (int) (events[i] >> 8) & 0xFF;
+    }
+
+    public int velocity(int i) {
+        return (int) events[i] & 0xFF;
+    }
+
+    /** Returns the text of event I, which must be a LYRIC. */
+    public String lyric(int i) {
+        return lyrics[(int) events[i] & (MAX_LYRICS - 1)];
+    }
+
+    /** Returns the index of the first event at or after sample offset
+     *  POSITION, or size() if there is none. */
+    public int firstAtOrAfter(int position) {
+        long key = (long) position << 32;
+        int lo = 0;
+        int hi = events.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (events[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
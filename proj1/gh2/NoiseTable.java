@@ -0,0 +1,57 @@
+package gh2;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A precomputed table of white noise in [-0.5, 0.5), for plucking.
+ *
+ * Rather than drawing a fresh random number for every sample of a pluck,
+ * GuitarString copies a window of this table starting at a random offset.
+ * A table built from a given seed always hands out the same windows in
+ * the same order, so plucks are reproducible in tests. Tables are not
+ * thread-safe; forCurrentThread() gives each thread its own.
+ */
+public class NoiseTable {
+    /** Number of samples in a table; more than the period of any audible
+     *  string. A power of two, so that indices wrap with a mask. */
+    public static final int SIZE = 1 << 16;
+
+    private static final ThreadLocal<NoiseTable> PER_THREAD =
+        ThreadLocal.withInitial(() -> new NoiseTable(ThreadLocalRandom.current().nextLong()));
+
+    private final double[] samples;
+    /** State of the xorshift generator that picks window offsets. */
+    private long state;
+
+    /** Creates a table whose contents and offsets are determined by SEED. */
+    public NoiseTable(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        samples = new double[SIZE];
+        for (int i = 0; i < SIZE; i += 1) {
+            samples[i] = random.nextDouble() - 0.5;
+        }
+        state = random.nextLong() | 1;
+    }
+
+    /** Returns the calling thread's table. */
+    public static NoiseTable forCurrentThread() {
+        return PER_THREAD.get();
+    }
+
+    /** Returns a random offset at which to start a window of N samples.
+     *  A window of N < SIZE samples fits inside samples(); a longer one
+     *  wraps around to its start. */
+    int nextOffset(int n) {
+        state ^= state << 13;
+        state ^= state >>> 7;
+        state ^= state << 17;
+        int choices = n < SIZE ? SIZE - n + 1 : SIZE;
+        return (int) ((state >>> 1) % choices);
+    }
+
+    /** Returns the table itself. Callers must not modify it. */
+    double[] samples() {
+        return samples;
+    }
+}
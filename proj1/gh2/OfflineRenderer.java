@@ -0,0 +1,253 @@
+package gh2;
+
+import edu.princeton.cs.algs4.StdAudio;
+
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MidiSystem;
+import javax.sound.midi.Sequence;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Renders a MIDI song to a buffer of samples (and from there to a WAV
+ * file) as fast as the machine allows, rather than in real time.
+ *
+ * The song's MidiEventIndex is split into per-string lists of note
+ * events. The strings are then divided among worker threads; each worker
+ * renders its strings a chunk of time at a time into a private buffer
+ * and adds that chunk into the shared mix. Strings never interact, so the
+ * workers only synchronize when adding a finished chunk, and the result
+ * sounds the same as GuitarPlayer.play() (up to the random noise of each
+ * pluck).
+ */
+public class OfflineRenderer {
+    /** Number of strings, one per MIDI note. */
+    private static final int STRINGS = 128;
+    /** Samples rendered into a worker's private buffer between mixes. */
+    private static final int CHUNK = 1 << 15;
+    /** Velocity value that marks a note-off event. */
+    private static final int NOTE_OFF = -1;
+
+    /** Length of the song, in samples. */
+    private final int length;
+    /** Events for string s are at indices [first[s], first[s + 1]). */
+    private final int[] first;
+    /** Sample at which each event takes effect. */
+    private final int[] position;
+    /** Velocity (0 - 127) of each note-on, or NOTE_OFF. */
+    private final int[] velocity;
+    /** Number of samples during which each string has non-zero volume. */
+    private final long[] load;
+
+    /** Parses SEQUENCE. */
+    public OfflineRenderer(Sequence sequence) {
+        this(new MidiEventIndex(sequence));
+    }
+
+    /** Prepares to render the song described by EVENTS. */
+    public OfflineRenderer(MidiEventIndex events) {
+        length = events.length();
+        int count = 0;
+        for (int i = 0; i < events.size(); i += 1) {
+            if (events.type(i) != MidiEventIndex.LYRIC) {
+                count += 1;
+            }
+        }
+
+        /* Group the events by string, keeping time order within each. */
+        first = new int[STRINGS + 1];
+        for (int i = 0; i < events.size(); i += 1) {
+            if (events.type(i) != MidiEventIndex.LYRIC) {
+                first[events.note(i) + 1] += 1;
+            }
+        }
+        for (int s = 0; s < STRINGS; s += 1) {
+            first[s + 1] += first[s];
+        }
+        position = new int[count];
+        velocity = new int[count];
+        int[] next = Arrays.copyOf(first, STRINGS);
+        for (int i = 0; i < events.size(); i += 1) {
+            int type = events.type(i);
+            if (type == MidiEventIndex.LYRIC) {
+                continue;
+            }
+            int k = next[events.note(i)]++;
+            position[k] = events.position(i);
+            velocity[k] = type == MidiEventIndex.NOTE_ON ? events.velocity(i) : NOTE_OFF;
+        }
+
+        load = new long[STRINGS];
+        for (int s = 0; s < STRINGS; s += 1) {
+            for (int e = first[s]; e < first[s + 1]; e += 1) {
+                if (velocity[e] > 0) {
+                    int end = e + 1 < first[s + 1] ? position[e + 1] : length;
+                    load[s] += end - position[e];
+                }
+            }
+        }
+    }
+
+    /** Returns the length of the song, in samples. */
+    public int length() {
+        return length;
+    }
+
+    /** Renders the whole song using THREADS worker threads and returns
+     *  the mixed samples. */
+    public double[] render(int threads) {
+        double[] mix = new double[length];
+        Object[] chunkLocks = new Object[(length + CHUNK - 1) / CHUNK];
+        for (int c = 0; c < chunkLocks.length; c += 1) {
+            chunkLocks[c] = new Object();
+        }
+
+        Thread[] workers = new Thread[threads];
+        int[][] assignment = assignStrings(threads);
+        for (int t = 0; t < threads; t += 1) {
+            int[] mine = assignment[t];
+            workers[t] = new Thread(() -> renderStrings(mine, mix, chunkLocks));
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+        return mix;
+    }
+
+    /**
+     * Divides the strings that have any events among THREADS workers,
+     * handing the busiest remaining string to the least loaded worker.
+     */
+    private int[][] assignStrings(int threads) {
+        Integer[] order = new Integer[STRINGS];
+        for (int s = 0; s < STRINGS; s += 1) {
+            order[s] = s;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(load[b], load[a]));
+
+        int[][] assignment = new int[threads][STRINGS];
+        int[] sizes = new int[threads];
+        long[] totals = new long[threads];
+        for (int s : order) {
+            if (first[s] == first[s + 1]) {
+                continue;
+            }
+            int best = 0;
+            for (int t = 1; t < threads; t += 1) {
+                if (totals[t] < totals[best]) {
+                    best = t;
+                }
+            }
+            assignment[best][sizes[best]++] = s;
+            totals[best] += load[s];
+        }
+        for (int t = 0; t < threads; t += 1) {
+            assignment[t] = Arrays.copyOf(assignment[t], sizes[t]);
+        }
+        return assignment;
+    }
+
+    /** Renders NOTES into MIX, one chunk of time at a time. */
+    private void renderStrings(int[] notes, double[] mix, Object[] chunkLocks) {
+        GuitarString[] strings = new GuitarString[notes.length];
+        double[] vol = new double[notes.length];
+        int[] cursor = new int[notes.length];
+        for (int k = 0; k < notes.length; k += 1) {
+            strings[k] = new GuitarString(440.0 * Math.pow(2.0, (notes[k] - 69.0) / 12.0));
+            cursor[k] = first[notes[k]];
+        }
+
+        double[] local = new double[CHUNK];
+        for (int c0 = 0; c0 < length; c0 += CHUNK) {
+            int c1 = Math.min(length, c0 + CHUNK);
+            boolean touched = false;
+            for (int k = 0; k < notes.length; k += 1) {
+                int end = first[notes[k] + 1];
+                int e = cursor[k];
+                int pos = c0;
+                while (true) {
+                    while (e < end && position[e] <= pos) {
+                        if (velocity[e] == NOTE_OFF) {
+                            vol[k] = 0.0;
+                        } else {
+                            vol[k] = velocity[e] / 127.0;
+                            strings[k].pluck();
+                        }
+                        e += 1;
+                    }
+                    if (pos >= c1) {
+                        break;
+                    }
+                    int next = e < end ? Math.min(c1, position[e]) : c1;
+                    if (vol[k] > 0.0 && !strings[k].isSilent(GuitarPlayer.SILENCE)) {
+                        strings[k].render(local, pos - c0, next - pos, vol[k]);
+                        touched = true;
+                    }
+                    pos = next;
+                }
+                cursor[k] = e;
+            }
+
+            if (touched) {
+                synchronized (chunkLocks[c0 / CHUNK]) {
+                    for (int i = 0; i < c1 - c0; i += 1) {
+                        mix[c0 + i] += local[i];
+                    }
+                }
+                Arrays.fill(local, 0.0);
+            }
+        }
+    }
+
+    /** Writes SAMPLES to FILE as a 16-bit mono WAV, clipping to [-1, 1]. */
+    public static void writeWav(double[] samples, File file) throws IOException {
+        byte[] data = new byte[2 * samples.length];
+        for (int i = 0; i < samples.length; i += 1) {
+            double x = Math.max(-1.0, Math.min(1.0, samples[i]));
+            int v = (int) (x * Short.MAX_VALUE);
+            data[2 * i] = (byte) v;
+            data[2 * i + 1] = (byte) (v >> 8);
+        }
+        AudioFormat format = new AudioFormat(StdAudio.SAMPLE_RATE, 16, 1, true, false);
+        try (AudioInputStream in = new AudioInputStream(
+                new ByteArrayInputStream(data), format, samples.length)) {
+            AudioSystem.write(in, AudioFileFormat.Type.WAVE, file);
+        }
+    }
+
+    /**
+     * Usage: java gh2.OfflineRenderer [song.mid] [out.wav] [threads]
+     * With no MIDI file, renders TTFAF. Prints the real-time factor.
+     */
+    public static void main(String[] args) throws IOException, InvalidMidiDataException {
+        Sequence sequence = args.length > 0 && !args[0].equals("-")
+            ? MidiSystem.getSequence(new File(args[0]))
+            : MidiSystem.getSequence(TTFAF.open());
+        File out = new File(args.length > 1 ? args[1] : "out.wav");
+        int threads = args.length > 2 ? Integer.parseInt(args[2])
+            : Runtime.getRuntime().availableProcessors();
+
+        long start = System.nanoTime();
+        OfflineRenderer renderer = new OfflineRenderer(sequence);
+        double[] samples = renderer.render(threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        writeWav(samples, out);
+
+        double audio = samples.length / (double) StdAudio.SAMPLE_RATE;
+        System.out.printf("rendered %.1f s of audio in %.3f s on %d threads (%.1fx real time)\n",
+                          audio, seconds, threads, audio / seconds);
+        System.out.println("wrote " + out);
+    }
+}
@@ -0,0 +1,68 @@
+package gh2;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, lock-free queue of pluck events, for exactly one producer
+ * thread (the keyboard) and one consumer thread (the audio renderer).
+ *
+ * Events live in preallocated primitive arrays, so offering one never
+ * allocates. The producer publishes a slot by advancing TAIL after
+ * writing it, and the consumer frees it by advancing HEAD after reading
+ * it; neither thread ever waits on the other.
+ */
+public class PluckQueue {
+    /** Receives events removed from the queue. */
+    public interface Handler {
+        void pluck(int string, long enqueuedNanos);
+    }
+
+    private final int[] strings;
+    private final long[] times;
+    private final int mask;
+    /** Number of events ever removed. Written only by the consumer. */
+    private final AtomicLong head = new AtomicLong();
+    /** Number of events ever added. Written only by the producer. */
+    private final AtomicLong tail = new AtomicLong();
+
+    /** Creates a queue holding up to CAPACITY events, rounded up to a
+     *  power of two. */
+    public PluckQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        strings = new int[size];
+        times = new long[size];
+        mask = size - 1;
+    }
+
+    /** Adds a pluck of STRING that happened at ENQUEUEDNANOS (from
+     *  System.nanoTime()). Returns false, dropping the event, if the queue
+     *  is full. Producer thread only. */
+    public boolean offer(int string, long enqueuedNanos) {
+        long t = tail.get();
+        if (t - head.get() > mask) {
+            return false;
+        }
+        int i = (int) t & mask;
+        strings[i] = string;
+        times[i] = enqueuedNanos;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /** Removes every queued event, passing each to HANDLER in order, and
+     *  returns how many there were. Consumer thread only. */
+    public int drain(Handler handler) {
+        long h = head.get();
+        long t = tail.get();
+        for (long k = h; k < t; k += 1) {
+            int i = (int) k & mask;
+            handler.pluck(strings[i], times[i]);
+        }
+        head.lazySet(t);
+        return (int) (t - h);
+    }
+
+    public boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+}
@@ -79,5 +79,95 @@ public class TestGuitarString  {
         // for assertEquals(double, double)
         assertEquals("Wrong tic value. Try running the testTic method.", expected, s5, 0.001);
     }
-}
 
+    @Test
+    public void testDequeModeTicCalculations() {
+        // Same as testTicCalculations, for a string backed by Deque<Double>.
+        GuitarString s = new GuitarString(11025, true);
+        s.pluck();
+
+        double s1 = s.sample();
+        s.tic();
+        double s2 = s.sample();
+        s.tic();
+        s.tic();
+        s.tic();
+
+        double expected = 0.996 * 0.5 * (s1 + s2);
+        assertEquals("Wrong tic value in Deque mode.", expected, s.sample(), 0.001);
+    }
+
+    @Test
+    public void testRenderMatchesTic() {
+        // Two identical buffers of an awkward length: one advanced with
+        // ksStep/peek one sample at a time, the other with ksRender.
+        DoubleRingBuffer a = new DoubleRingBuffer(37);
+        DoubleRingBuffer b = new DoubleRingBuffer(37);
+        for (int i = 0; i < 37; i += 1) {
+            double x = Math.random() - 0.5;
+            a.enqueue(x);
+            b.enqueue(x);
+        }
+        double[] expected = new double[1000];
+        for (int i = 0; i < expected.length; i += 1) {
+            a.ksStep(0.996);
+            expected[i] = 0.5 * a.peek();
+        }
+        double[] actual = new double[1000];
+        b.ksRender(0.996, actual, 0, 10, 0.5);
+        b.ksRender(0.996, actual, 10, 500, 0.5);
+        b.ksRender(0.996, actual, 510, 490, 0.5);
+        assertArrayEquals(expected, actual, 0.0);
+    }
+
+    @Test
+    public void testIsSilent() {
+        GuitarString s = new GuitarString(11025);
+        assertTrue(s.isSilent(1e-4));
+        s.pluck();
+        assertFalse(s.isSilent(1e-4));
+        s.render(new double[100000], 0, 100000, 1.0);
+        assertTrue("A plucked string should eventually decay.", s.isSilent(1e-4));
+        assertEquals(0.0, s.sample(), 1e-4);
+    }
+
+    @Test
+    public void testSeededPluckIsDeterministic() {
+        // The same seed must give the same sound, in either buffer mode.
+        GuitarString ring = new GuitarString(GuitarHeroLite.CONCERT_C);
+        GuitarString deque = new GuitarString(GuitarHeroLite.CONCERT_C, true);
+        ring.pluck(new NoiseTable(61));
+        deque.pluck(new NoiseTable(61));
+        for (int i = 0; i < 5000; i += 1) {
+            assertEquals(deque.sample(), ring.sample(), 0.0);
+            ring.tic();
+            deque.tic();
+        }
+
+        NoiseTable noise = new NoiseTable(61);
+        GuitarString s = new GuitarString(100);
+        s.pluck(noise);
+        double first = s.sample();
+        s.pluck(noise);
+        assertNotEquals("Successive plucks should use different noise.", first, s.sample());
+    }
+
+    @Test
+    public void testPluckLongerThanNoiseTable() {
+        // Periods of NoiseTable.SIZE and beyond wrap around the table.
+        for (double frequency : new double[] { 44100.0 / NoiseTable.SIZE, 0.6, 0.5, 0.2 }) {
+            GuitarString ring = new GuitarString(frequency);
+            GuitarString deque = new GuitarString(frequency, true);
+            for (int pluck = 0; pluck < 3; pluck += 1) {
+                ring.pluck(new NoiseTable(pluck));
+                deque.pluck(new NoiseTable(pluck));
+                for (int i = 0; i < 2 * NoiseTable.SIZE; i += 1) {
+                    assertEquals(deque.sample(), ring.sample(), 0.0);
+                    ring.tic();
+                    deque.tic();
+                }
+            }
+            assertFalse(ring.isSilent(1e-4));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package gh2;
+
+import org.junit.Test;
+
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MetaMessage;
+import javax.sound.midi.MidiEvent;
+import javax.sound.midi.Sequence;
+import javax.sound.midi.ShortMessage;
+import javax.sound.midi.Track;
+
+import static org.junit.Assert.*;
+
+/** Tests the MidiEventIndex class. */
+public class TestMidiEventIndex {
+
+    @Test
+    public void testNotesAndManyLyrics() throws InvalidMidiDataException {
+        // More lyrics than fit in the note and velocity bytes together.
+        int n = 70000;
+        Sequence sequence = new Sequence(Sequence.PPQ, 480);
+        Track track = sequence.createTrack();
+        for (int i = 0; i < n; i += 1) {
+            byte[] text = ("w" + i).getBytes();
+            track.add(new MidiEvent(new MetaMessage(0x05, text, text.length), i));
+            track.add(new MidiEvent(new ShortMessage(ShortMessage.NOTE_ON, 0, i % 128, 100), i));
+        }
+        MidiEventIndex index = new MidiEventIndex(sequence);
+        assertEquals(2 * n, index.size());
+        for (int i = 0; i < n; i += 1) {
+            assertEquals(MidiEventIndex.LYRIC, index.type(2 * i));
+            assertEquals("w" + i, index.lyric(2 * i));
+            assertEquals(MidiEventIndex.NOTE_ON, index.type(2 * i + 1));
+            assertEquals(i % 128, index.note(2 * i + 1));
+            assertEquals(100, index.velocity(2 * i + 1));
+        }
+        assertEquals(n + 1, index.firstAtOrAfter(index.position(n + 1)));
+    }
+}
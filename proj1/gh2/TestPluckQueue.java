@@ -0,0 +1,57 @@
+package gh2;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Tests the PluckQueue class. */
+public class TestPluckQueue {
+
+    @Test
+    public void testOfferAndDrain() {
+        PluckQueue q = new PluckQueue(4);
+        assertTrue(q.isEmpty());
+        assertTrue(q.offer(1, 10));
+        assertTrue(q.offer(2, 20));
+
+        StringBuilder seen = new StringBuilder();
+        assertEquals(2, q.drain((s, t) -> seen.append(s).append('@').append(t).append(' ')));
+        assertEquals("1@10 2@20 ", seen.toString());
+        assertTrue(q.isEmpty());
+        assertEquals(0, q.drain((s, t) -> fail("queue should be empty")));
+    }
+
+    @Test
+    public void testFullQueueDropsEvents() {
+        PluckQueue q = new PluckQueue(4);
+        for (int i = 0; i < 4; i += 1) {
+            assertTrue(q.offer(i, i));
+        }
+        assertFalse(q.offer(4, 4));
+        q.drain((s, t) -> { });
+        assertTrue(q.offer(5, 5));
+    }
+
+    @Test
+    public void testProducerConsumerKeepOrder() throws InterruptedException {
+        PluckQueue q = new PluckQueue(64);
+        int n = 200000;
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < n; i += 1) {
+                while (!q.offer(i, i)) {
+                    Thread.yield();
+                }
+            }
+        });
+        producer.start();
+
+        int[] next = {0};
+        while (next[0] < n) {
+            q.drain((s, t) -> {
+                assertEquals(next[0], s);
+                assertEquals(next[0], t);
+                next[0] += 1;
+            });
+        }
+        producer.join();
+    }
+}
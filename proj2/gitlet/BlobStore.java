@@ -0,0 +1,359 @@
+package gitlet;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/** A content-addressed store of file contents ("blobs") and serialized
+ *  objects in a directory.
+ *
+ *  An object's id is the SHA-1 hash of its contents, as Utils.sha1 would
+ *  compute from the bytes of the file (or Utils.serialize of the object),
+ *  and the object with id ID is kept in the file ID[2..] of the
+ *  subdirectory ID[0..1], so that no directory holds more than a small
+ *  share of the objects. Each is stored compressed in the zlib format
+ *  (by a Deflater at the store's level) and decompressed as it is read,
+ *  so the uncompressed contents never exist on disk or, for blobs, in
+ *  the heap.
+ *
+ *  Files are stored and retrieved in a single streaming pass through a
+ *  fixed-size buffer, so their size is limited by the disk rather than
+ *  the heap: put hashes the file while compressing it to a temporary
+ *  file in the store, and then renames that atomically into place. A
+ *  store is therefore never seen holding a partly written object, even
+ *  if the program dies in the middle of a put.
+ *
+ *  Objects written by put are "loose", one file each. gc moves them all,
+ *  with those of any earlier packs, into PackFiles in the subdirectory
+ *  "pack", where similar objects are stored as deltas of one another;
+ *  only an object too large for a pack stays loose. Objects are looked
+ *  for first among the loose objects and then in the packs.
+ */
+class BlobStore {
+
+    /** Size of the buffer used for copying (bytes). */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** Compression level used unless another is given. */
+    static final int DEFAULT_LEVEL = Deflater.DEFAULT_COMPRESSION;
+
+    /** A store whose objects are kept under the directory DIR, which is
+     *  created when the first object is stored. */
+    BlobStore(File dir) {
+        this(dir, DEFAULT_LEVEL);
+    }
+
+    /** A store whose objects are kept under the directory DIR, compressed
+     *  at Deflater level LEVEL (0-9, or Deflater.DEFAULT_COMPRESSION). */
+    BlobStore(File dir, int level) {
+        if (level != Deflater.DEFAULT_COMPRESSION
+            && (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("bad compression level: " + level);
+        }
+        _dir = dir;
+        _level = level;
+    }
+
+    /** Store the contents of FILE, if not already present, and return
+     *  their id. Throws IllegalArgumentException in case of problems. */
+    String put(File file) {
+        if (!file.isFile()) {
+            throw new IllegalArgumentException("must be a normal file");
+        }
+        Path temp = null;
+        try {
+            MessageDigest md = Utils.sha1Digester();
+            try (FileChannel channel = FileChannel.open(file.toPath(),
+                                                        StandardOpenOption.READ);
+                 InputStream in = new DigestInputStream(
+                     Channels.newInputStream(channel), md)) {
+                temp = writeTemp(in);
+            }
+            String id = Utils.toHex(md.digest());
+            install(temp, id);
+            return id;
+        } catch (IOException excp) {
+            deleteQuietly(temp);
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    /** Store OBJ, serialized, if not already present, and return its id.
+     *  Throws IllegalArgumentException in case of problems. */
+    String putObject(Serializable obj) {
+        byte[] bytes = Utils.serialize(obj);
+        String id = Utils.sha1(bytes);
+        if (contains(id)) {
+            return id;
+        }
+        Path temp = null;
+        try {
+            temp = writeTemp(new ByteArrayInputStream(bytes));
+            install(temp, id);
+            return id;
+        } catch (IOException excp) {
+            deleteQuietly(temp);
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    /** Return the object with id ID, which was stored by putObject,
+     *  casting it to EXPECTEDCLASS. Throws IllegalArgumentException in
+     *  case of problems. */
+    <T extends Serializable> T getObject(String id, Class<T> expectedClass) {
+        try (ObjectInputStream in = new ObjectInputStream(open(id))) {
+            return expectedClass.cast(in.readObject());
+        } catch (IOException | ClassCastException
+                 | ClassNotFoundException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    /** Return true iff the object with id ID is in this store. */
+    boolean contains(String id) {
+        if (file(id).isFile()) {
+            return true;
+        }
+        for (PackFile pack : packs()) {
+            if (pack.contains(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Return the file that holds (or would hold) the object with id ID,
+     *  compressed, when it is loose. */
+    File file(String id) {
+        if (id.length() != Utils.UID_LENGTH) {
+            throw new IllegalArgumentException("malformed blob id: " + id);
+        }
+        return Utils.join(_dir, id.substring(0, 2), id.substring(2));
+    }
+
+    /** Return a stream of the (decompressed) contents of the object with
+     *  id ID, which the caller must close. Throws IllegalArgumentException
+     *  if there is no such object. */
+    InputStream open(String id) {
+        InputStream in;
+        try {
+            in = Files.newInputStream(file(id).toPath());
+        } catch (IOException excp) {
+            for (PackFile pack : packs()) {
+                in = pack.open(id);
+                if (in != null) {
+                    return in;
+                }
+            }
+            throw new IllegalArgumentException("no blob " + id);
+        }
+        return new InflaterInputStream(new BufferedInputStream(in, BUFFER_SIZE));
+    }
+
+    /** Pack all the objects in this store into new packs, and delete the
+     *  loose objects and former packs. Returns the number of objects
+     *  packed. */
+    int gc() {
+        return gc(PackFile.MAX_SIZE);
+    }
+
+    /** Pack all the objects in this store into new packs of at most
+     *  MAXPACKSIZE bytes, and delete the loose objects and former packs.
+     *  Objects too large for a pack are left loose. Returns the number of
+     *  objects packed. */
+    int gc(long maxPackSize) {
+        List<PackFile> oldPacks = packs();
+        List<File> loose = looseFiles();
+        TreeSet<String> ids = new TreeSet<>();
+        for (File file : loose) {
+            ids.add(file.getParentFile().getName() + file.getName());
+        }
+        for (PackFile pack : oldPacks) {
+            ids.addAll(pack.ids());
+        }
+        if (ids.isEmpty() || (loose.isEmpty() && oldPacks.size() == 1)) {
+            return 0;
+        }
+        List<PackFile> packs = PackFile.write(this, ids, Utils.join(_dir, "pack"),
+                                              maxPackSize);
+        List<File> kept = new ArrayList<>();
+        int packed = 0;
+        for (PackFile pack : packs) {
+            kept.add(pack.indexFile());
+            packed += pack.size();
+        }
+        for (PackFile old : oldPacks) {
+            if (!kept.contains(old.indexFile())) {
+                for (String id : old.ids()) {
+                    if (!inPacks(id, packs)) {
+                        unpack(old, id);
+                    }
+                }
+                old.indexFile().delete();
+                old.packFile().delete();
+            }
+        }
+        for (File file : loose) {
+            if (inPacks(file.getParentFile().getName() + file.getName(), packs)) {
+                file.delete();
+                file.getParentFile().delete();
+            }
+        }
+        _packs = null;
+        return packed;
+    }
+
+    /** Return true iff the object with id ID is in one of PACKS. */
+    private static boolean inPacks(String id, List<PackFile> packs) {
+        for (PackFile pack : packs) {
+            if (pack.contains(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Store the object with id ID in PACK as a loose object, unless it
+     *  already is one. */
+    private void unpack(PackFile pack, String id) {
+        if (file(id).isFile()) {
+            return;
+        }
+        Path temp = null;
+        try (InputStream in = pack.open(id)) {
+            temp = writeTemp(in);
+            install(temp, id);
+        } catch (IOException excp) {
+            deleteQuietly(temp);
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    /** Return the files of the loose objects. */
+    private List<File> looseFiles() {
+        List<File> result = new ArrayList<>();
+        File[] dirs = _dir.listFiles();
+        if (dirs == null) {
+            return result;
+        }
+        for (File dir : dirs) {
+            if (dir.isDirectory() && dir.getName().length() == 2) {
+                for (File file : dir.listFiles()) {
+                    if (file.getName().length() == Utils.UID_LENGTH - 2) {
+                        result.add(file);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Return the packs in this store, reading their indices the first
+     *  time. */
+    private List<PackFile> packs() {
+        if (_packs == null) {
+            _packs = new ArrayList<>();
+            List<String> names = Utils.plainFilenamesIn(Utils.join(_dir, "pack"));
+            if (names != null) {
+                for (String name : names) {
+                    if (name.startsWith("pack-") && name.endsWith(".idx")) {
+                        _packs.add(new PackFile(Utils.join(_dir, "pack", name)));
+                    }
+                }
+            }
+        }
+        return _packs;
+    }
+
+    /** Write the contents of the blob with id ID to FILE, creating or
+     *  overwriting it as needed. Throws IllegalArgumentException in case
+     *  of problems. */
+    void copyTo(String id, File file) {
+        if (file.isDirectory()) {
+            throw new IllegalArgumentException("cannot overwrite directory");
+        }
+        try (InputStream in = open(id);
+             OutputStream out = Files.newOutputStream(file.toPath())) {
+            copy(in, out);
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    /** Compress all of IN into a new temporary file in the store, and
+     *  return its path. */
+    private Path writeTemp(InputStream in) throws IOException {
+        _dir.mkdirs();
+        Path temp = Files.createTempFile(_dir.toPath(), "blob", ".tmp");
+        Deflater deflater = new Deflater(_level);
+        try (OutputStream out = new DeflaterOutputStream(
+                 Files.newOutputStream(temp), deflater, BUFFER_SIZE)) {
+            copy(in, out);
+        } catch (IOException excp) {
+            deleteQuietly(temp);
+            throw excp;
+        } finally {
+            deflater.end();
+        }
+        return temp;
+    }
+
+    /** Move the temporary file TEMP into place as the object with id ID,
+     *  or delete it if that object is already present. */
+    private void install(Path temp, String id) throws IOException {
+        File target = file(id);
+        if (target.exists()) {
+            Files.delete(temp);
+        } else {
+            target.getParentFile().mkdir();
+            Files.move(temp, target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /** Copy all of IN to OUT. */
+    private static void copy(InputStream in, OutputStream out)
+        throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+            out.write(buffer, 0, n);
+        }
+    }
+
+    /** Delete the file PATH, if it is non-null and exists, ignoring
+     *  errors. */
+    private static void deleteQuietly(Path path) {
+        if (path != null) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException excp) {
+                /* Leave it; it is only a temporary file. */
+            }
+        }
+    }
+
+    /** Directory holding the objects. */
+    private final File _dir;
+    /** Deflater level of objects written. */
+    private final int _level;
+    /** Packs, once read. */
+    private List<PackFile> _packs;
+}
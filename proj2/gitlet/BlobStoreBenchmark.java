@@ -0,0 +1,128 @@
+package gitlet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/** Measures the size of a BlobStore and the throughput of storing and
+ *  checking out its files at several compression levels:
+ *      java gitlet.BlobStoreBenchmark [DIR]
+ *  The corpus is the plain files under DIR, or by default a set of
+ *  generated text files resembling source code.
+ */
+public class BlobStoreBenchmark {
+
+    /** Compression levels measured. Level 0 stores the contents
+     *  uncompressed, as gitlet formerly did. */
+    private static final int[] LEVELS = { 0, 1, 6, 9 };
+
+    /** Number and mean length of generated files. */
+    private static final int FILES = 400, FILE_LENGTH = 20_000;
+
+    /** Words from which generated files are made. */
+    private static final String[] WORDS = {
+        "public", "static", "final", "int", "return", "if", "else", "for",
+        "while", "new", "String", "File", "commit", "blob", "id", "parent",
+        "message", "=", "+=", "==", "(", ")", "{", "}", ";", "0", "1",
+        "null", "this", "Utils.sha1", "branch", "head", "stage", "remove",
+    };
+
+    /** Write FILES text files of about FILE_LENGTH bytes into DIR, and
+     *  return them. */
+    private static List<File> generate(File dir) {
+        dir.mkdirs();
+        Random random = new Random(49);
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < FILES; i += 1) {
+            StringBuilder text = new StringBuilder();
+            int length = FILE_LENGTH / 2 + random.nextInt(FILE_LENGTH);
+            while (text.length() < length) {
+                text.append("    ".repeat(random.nextInt(4)));
+                for (int w = random.nextInt(12); w >= 0; w -= 1) {
+                    text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+                }
+                text.append('\n');
+            }
+            File file = Utils.join(dir, "file" + i + ".java");
+            Utils.writeContents(file, text.toString());
+            files.add(file);
+        }
+        return files;
+    }
+
+    /** Return the plain files under DIR. */
+    private static List<File> corpus(File dir) throws IOException {
+        List<File> files = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(dir.toPath())) {
+            paths.filter(Files::isRegularFile).forEach(p -> files.add(p.toFile()));
+        }
+        return files;
+    }
+
+    /** Return the total length of the files under DIR. */
+    private static long size(File dir) throws IOException {
+        long total = 0;
+        for (File file : corpus(dir)) {
+            total += file.length();
+        }
+        return total;
+    }
+
+    /** Delete DIR and everything under it. */
+    private static void delete(File dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    /** Print the table of measurements. ARGS may name a corpus
+     *  directory. */
+    public static void main(String... args) throws IOException {
+        File work = Files.createTempDirectory("gitlet-bench").toFile();
+        try {
+            List<File> files = args.length > 0 ? corpus(new File(args[0]))
+                : generate(Utils.join(work, "corpus"));
+            long bytes = 0;
+            for (File file : files) {
+                bytes += file.length();
+            }
+            System.out.printf("%d files, %.1f MB%n", files.size(), bytes / 1e6);
+            System.out.printf("%5s %12s %7s %11s %14s%n", "level", "store (MB)",
+                              "ratio", "add MB/s", "checkout MB/s");
+            File out = Utils.join(work, "out");
+            for (int level : LEVELS) {
+                for (int pass = 0; pass < 2; pass += 1) {
+                    File dir = Utils.join(work, "objects" + level);
+                    BlobStore store = new BlobStore(dir, level);
+                    List<String> ids = new ArrayList<>();
+                    long start = System.nanoTime();
+                    for (File file : files) {
+                        ids.add(store.put(file));
+                    }
+                    double addSeconds = (System.nanoTime() - start) / 1e9;
+                    start = System.nanoTime();
+                    for (String id : ids) {
+                        store.copyTo(id, out);
+                    }
+                    double checkoutSeconds = (System.nanoTime() - start) / 1e9;
+                    long stored = size(dir);
+                    delete(dir);
+                    if (pass == 1) {
+                        System.out.printf("%5d %12.2f %7.2f %11.1f %14.1f%n", level,
+                                          stored / 1e6, (double) bytes / stored,
+                                          bytes / 1e6 / addSeconds,
+                                          bytes / 1e6 / checkoutSeconds);
+                    }
+                }
+            }
+        } finally {
+            delete(work);
+        }
+    }
+}
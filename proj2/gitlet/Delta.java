@@ -0,0 +1,186 @@
+package gitlet;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/** Delta encoding of one byte array against another, for PackFile.
+ *
+ *  A delta of TARGET against BASE is the varint lengths of BASE and
+ *  TARGET followed by instructions that rebuild TARGET from left to
+ *  right: COPY OFFSET LENGTH appends LENGTH bytes of BASE starting at
+ *  OFFSET, and INSERT LENGTH BYTES appends the LENGTH literal BYTES.
+ *  Varints are little-endian base 128, as in git.
+ *
+ *  create finds copies by indexing BASE in aligned BLOCK-byte blocks and
+ *  sliding a rolling hash of the same width along TARGET, extending each
+ *  match found in both directions, so it takes time linear in the
+ *  lengths of the two arrays.
+ */
+class Delta {
+
+    /** Instruction codes. */
+    private static final int INSERT = 0, COPY = 1;
+
+    /** Width of the blocks of the base that are indexed, and so the
+     *  shortest copy found. */
+    private static final int BLOCK = 16;
+
+    /** Multiplier of the rolling hash. */
+    private static final int PRIME = 0x01000193;
+
+    /** PRIME to the power BLOCK, for removing a byte from the hash. */
+    private static final int PRIME_BLOCK;
+
+    static {
+        int p = 1;
+        for (int i = 0; i < BLOCK; i += 1) {
+            p *= PRIME;
+        }
+        PRIME_BLOCK = p;
+    }
+
+    /** Return a delta that rebuilds TARGET from BASE, or null if it would
+     *  not be shorter than LIMIT bytes. */
+    static byte[] create(byte[] base, byte[] target, int limit) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeVarint(out, base.length);
+        writeVarint(out, target.length);
+
+        int blocks = base.length / BLOCK;
+        int bits = 32 - Integer.numberOfLeadingZeros(Math.max(1, 2 * blocks));
+        int mask = (1 << bits) - 1;
+        int[] table = new int[1 << bits];
+        Arrays.fill(table, -1);
+        for (int b = blocks - 1; b >= 0; b -= 1) {
+            table[mix(hash(base, b * BLOCK)) & mask] = b * BLOCK;
+        }
+
+        int insertStart = 0;
+        int i = 0;
+        int h = target.length >= BLOCK ? hash(target, 0) : 0;
+        while (i + BLOCK <= target.length) {
+            int candidate = blocks == 0 ? -1 : table[mix(h) & mask];
+            if (candidate >= 0 && matches(base, candidate, target, i)) {
+                int start = i, from = candidate;
+                while (start > insertStart && from > 0
+                       && base[from - 1] == target[start - 1]) {
+                    start -= 1;
+                    from -= 1;
+                }
+                int end = i + BLOCK, fromEnd = candidate + BLOCK;
+                while (end < target.length && fromEnd < base.length
+                       && base[fromEnd] == target[end]) {
+                    end += 1;
+                    fromEnd += 1;
+                }
+                writeInsert(out, target, insertStart, start);
+                out.write(COPY);
+                writeVarint(out, from);
+                writeVarint(out, end - start);
+                if (out.size() >= limit) {
+                    return null;
+                }
+                i = insertStart = end;
+                if (i + BLOCK <= target.length) {
+                    h = hash(target, i);
+                }
+            } else {
+                if (i + BLOCK < target.length) {
+                    h = h * PRIME + (target[i + BLOCK] & 0xff)
+                        - (target[i] & 0xff) * PRIME_BLOCK;
+                }
+                i += 1;
+            }
+        }
+        writeInsert(out, target, insertStart, target.length);
+        return out.size() < limit ? out.toByteArray() : null;
+    }
+
+    /** Return the result of applying DELTA, made by create, to BASE. */
+    static byte[] apply(byte[] base, byte[] delta) {
+        int[] pos = { 0 };
+        if (readVarint(delta, pos) != base.length) {
+            throw new IllegalArgumentException("delta does not fit its base");
+        }
+        byte[] result = new byte[readVarint(delta, pos)];
+        int n = 0;
+        while (pos[0] < delta.length) {
+            int op = delta[pos[0]++];
+            if (op == COPY) {
+                int from = readVarint(delta, pos), length = readVarint(delta, pos);
+                System.arraycopy(base, from, result, n, length);
+                n += length;
+            } else if (op == INSERT) {
+                int length = readVarint(delta, pos);
+                System.arraycopy(delta, pos[0], result, n, length);
+                pos[0] += length;
+                n += length;
+            } else {
+                throw new IllegalArgumentException("corrupt delta");
+            }
+        }
+        if (n != result.length) {
+            throw new IllegalArgumentException("corrupt delta");
+        }
+        return result;
+    }
+
+    /** Return the rolling hash of the BLOCK bytes of DATA at START. */
+    private static int hash(byte[] data, int start) {
+        int h = 0;
+        for (int k = start; k < start + BLOCK; k += 1) {
+            h = h * PRIME + (data[k] & 0xff);
+        }
+        return h;
+    }
+
+    /** Return H with its high bits folded into its low ones, for use as
+     *  a table index. */
+    private static int mix(int h) {
+        return h ^ (h >>> 15) ^ (h >>> 24);
+    }
+
+    /** Return true iff the BLOCK bytes of BASE at FROM equal those of
+     *  TARGET at AT. */
+    private static boolean matches(byte[] base, int from, byte[] target, int at) {
+        for (int k = 0; k < BLOCK; k += 1) {
+            if (base[from + k] != target[at + k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Write an INSERT of DATA[START .. END-1] to OUT, if it is not
+     *  empty. */
+    private static void writeInsert(ByteArrayOutputStream out, byte[] data,
+                                     int start, int end) {
+        if (end > start) {
+            out.write(INSERT);
+            writeVarint(out, end - start);
+            out.write(data, start, end - start);
+        }
+    }
+
+    /** Write the non-negative N to OUT as a varint. */
+    static void writeVarint(ByteArrayOutputStream out, long n) {
+        while ((n & ~0x7FL) != 0) {
+            out.write((int) (n & 0x7F) | 0x80);
+            n >>>= 7;
+        }
+        out.write((int) n);
+    }
+
+    /** Return the varint in DATA at POS[0], advancing POS[0] past it. */
+    private static int readVarint(byte[] data, int[] pos) {
+        int n = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = data[pos[0]++] & 0xff;
+            n |= (b & 0x7F) << shift;
+            if (b < 0x80) {
+                return n;
+            }
+        }
+        throw new IllegalArgumentException("corrupt delta");
+    }
+}
@@ -18,6 +18,9 @@ public class Main {
             case "add":
                 // TODO: handle the `add [filename]` command
                 break;
+            case "gc":
+                new BlobStore(Repository.OBJECTS_DIR).gc();
+                break;
             // TODO: FILL THE REST IN
         }
     }
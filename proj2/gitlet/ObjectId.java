@@ -0,0 +1,123 @@
+package gitlet;
+
+import java.io.Serializable;
+
+/** The SHA-1 id of a gitlet object, held as its 20 raw bytes rather than
+ *  as a 40-character String.
+ *
+ *  An ObjectId takes a fraction of the space of the equivalent String,
+ *  and hashing and comparing one touches three fields rather than 40
+ *  characters, which makes it the better key for maps of many objects.
+ *  ObjectIds are ordered as their hexadecimal numerals are, and
+ *  toString() returns that numeral, so that either form may be used
+ *  where ids are printed or stored in files.
+ */
+final class ObjectId implements Comparable<ObjectId>, Serializable {
+
+    /** Version of the serialized form. */
+    private static final long serialVersionUID = 1L;
+
+    /** Number of bytes in an id. */
+    static final int LENGTH = 20;
+
+    /** The id whose bytes are DIGEST, which must have LENGTH bytes. */
+    ObjectId(byte[] digest) {
+        if (digest.length != LENGTH) {
+            throw new IllegalArgumentException("SHA-1 digests have 20 bytes");
+        }
+        _hi = bytesToLong(digest, 0);
+        _mid = bytesToLong(digest, 8);
+        _lo = (int) (bytesToLong(digest, 12) & 0xffffffffL);
+    }
+
+    /** Return the id whose hexadecimal numeral is HEX (Utils.UID_LENGTH
+     *  digits, either case). */
+    static ObjectId fromHex(String hex) {
+        if (hex.length() != Utils.UID_LENGTH) {
+            throw new IllegalArgumentException("malformed id: " + hex);
+        }
+        byte[] digest = new byte[LENGTH];
+        for (int i = 0; i < LENGTH; i += 1) {
+            int high = hexDigit(hex.charAt(2 * i)),
+                low = hexDigit(hex.charAt(2 * i + 1));
+            if (high < 0 || low < 0) {
+                throw new IllegalArgumentException("malformed id: " + hex);
+            }
+            digest[i] = (byte) ((high << 4) | low);
+        }
+        return new ObjectId(digest);
+    }
+
+    /** Return the 20 bytes of this id. */
+    byte[] toBytes() {
+        byte[] result = new byte[LENGTH];
+        for (int i = 0; i < 8; i += 1) {
+            result[i] = (byte) (_hi >>> (56 - 8 * i));
+            result[8 + i] = (byte) (_mid >>> (56 - 8 * i));
+        }
+        for (int i = 0; i < 4; i += 1) {
+            result[16 + i] = (byte) (_lo >>> (24 - 8 * i));
+        }
+        return result;
+    }
+
+    @Override
+    /** Returns the id as a hexadecimal numeral, as Utils.sha1 does. */
+    public String toString() {
+        return Utils.toHex(toBytes());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof ObjectId)) {
+            return false;
+        }
+        ObjectId other = (ObjectId) obj;
+        return _hi == other._hi && _mid == other._mid && _lo == other._lo;
+    }
+
+    @Override
+    public int hashCode() {
+        /* The bytes of a digest are already uniformly distributed. */
+        return (int) _hi;
+    }
+
+    @Override
+    public int compareTo(ObjectId other) {
+        int c = Long.compareUnsigned(_hi, other._hi);
+        if (c == 0) {
+            c = Long.compareUnsigned(_mid, other._mid);
+        }
+        if (c == 0) {
+            c = Integer.compareUnsigned(_lo, other._lo);
+        }
+        return c;
+    }
+
+    /** Return the value of the hexadecimal digit C, or -1 if it is not
+     *  one. Unlike Character.digit, accepts only ASCII digits. */
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        } else if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    /** Return the 8 bytes of BYTES starting at START as a big-endian
+     *  long. */
+    private static long bytesToLong(byte[] bytes, int start) {
+        long result = 0;
+        for (int i = start; i < start + 8; i += 1) {
+            result = (result << 8) | (bytes[i] & 0xff);
+        }
+        return result;
+    }
+
+    /** Bytes 0-7, 8-15 and 16-19 of the id, big-endian. */
+    private final long _hi, _mid;
+    private final int _lo;
+}
@@ -0,0 +1,532 @@
+package gitlet;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/** A pack: many objects of a BlobStore in one file, with a sorted index.
+ *
+ *  The pack file pack-ID.pack holds the bytes "GPCK", a version byte, and
+ *  then one entry per object, each a type byte followed by a zlib stream.
+ *  A FULL entry's stream is the object's contents. A DELTA entry's type
+ *  byte is followed by the varint distance back to the entry of its
+ *  base, and its stream is a Delta that rebuilds the object from that
+ *  base. Bases are chosen, as git does, among the objects of nearest
+ *  size, and chains of deltas are at most MAX_DEPTH long.
+ *
+ *  The index file pack-ID.idx holds "GIDX", a version int, a fan-out
+ *  table whose entry B is the number of objects whose ids' first bytes
+ *  are at most B, the 20-byte ids in increasing order, and the 8-byte
+ *  offset in the pack of each. Finding an object is a binary search of
+ *  the ids sharing its first byte. Both files are read through memory
+ *  maps, which limits a pack to MAX_SIZE (2 GB), so write divides the
+ *  objects among as many packs as it needs and leaves out any object too
+ *  large for a pack of its own. ID is the SHA-1 of the sorted ids, and
+ *  the index is written last, so a pack whose index exists is complete.
+ */
+class PackFile {
+
+    /** Entry types. */
+    private static final int FULL = 0, DELTA = 1;
+
+    /** Version written in both files. */
+    private static final int VERSION = 1;
+    /** Leading bytes of the pack and index files. */
+    private static final byte[] PACK_MAGIC = { 'G', 'P', 'C', 'K' },
+        INDEX_MAGIC = { 'G', 'I', 'D', 'X' };
+
+    /** Largest pack or index that can be mapped (bytes). */
+    static final long MAX_SIZE = Integer.MAX_VALUE;
+
+    /** Length of the pack header. */
+    private static final int PACK_START = 5;
+    /** Offset of the first id in the index. */
+    private static final int IDS_START = 8 + 256 * 4;
+    /** Most objects whose index fits in MAX_SIZE. */
+    private static final int MAX_OBJECTS =
+        (int) ((MAX_SIZE - IDS_START) / (ObjectId.LENGTH + 8));
+
+    /** Number of preceding objects (by size) tried as delta bases. */
+    private static final int WINDOW = 10;
+    /** Longest chain of deltas. */
+    private static final int MAX_DEPTH = 10;
+    /** Objects larger than this are stored whole, without being read
+     *  into memory. */
+    private static final long MAX_DELTA_SIZE = 1 << 24;
+
+    /** Size of copying buffers. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** The pack whose index is the file INDEXFILE, next to which is its
+     *  pack file. Throws IllegalArgumentException in case of problems. */
+    PackFile(File indexFile) {
+        String name = indexFile.getName();
+        _indexFile = indexFile;
+        _packFile = new File(indexFile.getParentFile(),
+                             name.substring(0, name.length() - 4) + ".pack");
+        _index = map(_indexFile);
+        _pack = map(_packFile);
+        byte[] magic = new byte[4];
+        _index.get(0, magic);
+        if (!Arrays.equals(magic, INDEX_MAGIC) || _index.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("bad pack index " + indexFile);
+        }
+        _count = _index.getInt(IDS_START - 4);
+        _offsetsStart = IDS_START + _count * ObjectId.LENGTH;
+    }
+
+    /** Return the index file. */
+    File indexFile() {
+        return _indexFile;
+    }
+
+    /** Return the pack file. */
+    File packFile() {
+        return _packFile;
+    }
+
+    /** Return the number of objects in the pack. */
+    int size() {
+        return _count;
+    }
+
+    /** Return the ids of the objects in the pack, in increasing order. */
+    List<String> ids() {
+        List<String> result = new ArrayList<>(_count);
+        byte[] id = new byte[ObjectId.LENGTH];
+        for (int k = 0; k < _count; k += 1) {
+            _index.get(IDS_START + k * ObjectId.LENGTH, id);
+            result.add(Utils.toHex(id));
+        }
+        return result;
+    }
+
+    /** Return true iff the object with id ID is in this pack. */
+    boolean contains(String id) {
+        return find(ObjectId.fromHex(id).toBytes()) >= 0;
+    }
+
+    /** Return a stream of the contents of the object with id ID, or null
+     *  if it is not in this pack. Objects stored whole are inflated as
+     *  they are read; others are rebuilt in memory. */
+    InputStream open(String id) {
+        int k = find(ObjectId.fromHex(id).toBytes());
+        if (k < 0) {
+            return null;
+        }
+        int offset = offset(k);
+        if (_pack.get(offset) == FULL) {
+            return new InflaterInputStream(new BufferInputStream(_pack, offset + 1));
+        }
+        return new ByteArrayInputStream(contents(offset));
+    }
+
+    /** Return the position among the ids of ID (20 bytes), or -1 if it is
+     *  not present. */
+    private int find(byte[] id) {
+        int first = id[0] & 0xff;
+        int lo = first == 0 ? 0 : _index.getInt(8 + (first - 1) * 4),
+            hi = _index.getInt(8 + first * 4) - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = compareId(mid, id);
+            if (c < 0) {
+                lo = mid + 1;
+            } else if (c > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /** Compare the Kth id in the index with ID, as unsigned bytes. */
+    private int compareId(int k, byte[] id) {
+        int start = IDS_START + k * ObjectId.LENGTH;
+        for (int i = 0; i < ObjectId.LENGTH; i += 1) {
+            int c = Integer.compare(_index.get(start + i) & 0xff, id[i] & 0xff);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return 0;
+    }
+
+    /** Return the pack offset of the Kth object in the index. */
+    private int offset(int k) {
+        return (int) _index.getLong(_offsetsStart + k * 8);
+    }
+
+    /** Return the contents of the entry at OFFSET. */
+    private byte[] contents(int offset) {
+        try {
+            if (_pack.get(offset) == FULL) {
+                return inflate(offset + 1);
+            }
+            int[] pos = { offset + 1 };
+            int base = offset - readVarint(_pack, pos);
+            return Delta.apply(contents(base), inflate(pos[0]));
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    /** Return the whole of the zlib stream in the pack at START. */
+    private byte[] inflate(int start) throws IOException {
+        try (InputStream in = new InflaterInputStream(new BufferInputStream(_pack, start))) {
+            return in.readAllBytes();
+        }
+    }
+
+    /** Write the objects in STORE with ids IDS to the directory DIR, in
+     *  packs of at most MAXSIZE bytes, and return those packs. An object
+     *  that might not fit in a pack by itself is left out. */
+    static List<PackFile> write(BlobStore store, Collection<String> ids, File dir,
+                                long maxSize) {
+        dir.mkdirs();
+        try {
+            List<Sized> objects = new ArrayList<>();
+            for (String id : ids) {
+                long length = length(store, id);
+                if (PACK_START + bound(length) <= maxSize) {
+                    objects.add(new Sized(id, length));
+                }
+            }
+            objects.sort(Comparator.comparingLong((Sized s) -> s.length)
+                         .thenComparing(s -> s.id));
+            List<PackFile> result = new ArrayList<>();
+            int k = 0;
+            while (k < objects.size()) {
+                PackFile pack = writePack(store, objects, k, dir, maxSize);
+                result.add(pack);
+                k += pack.size();
+            }
+            return result;
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    /** Write a pack to DIR of at most MAXSIZE bytes holding OBJECTS[START],
+     *  taken from STORE, and as many of the objects after it as fit, and
+     *  return it. */
+    private static PackFile writePack(BlobStore store, List<Sized> objects, int start,
+                                      File dir, long maxSize) throws IOException {
+        Path temp = Files.createTempFile(dir.toPath(), "pack", ".tmp");
+        try {
+            long[] offsets = new long[Math.min(objects.size() - start, MAX_OBJECTS)];
+            int count;
+            try (CountingStream out = new CountingStream(Files.newOutputStream(temp))) {
+                out.write(PACK_MAGIC);
+                out.write(VERSION);
+                count = writeEntries(store, objects.subList(start, start + offsets.length),
+                                     offsets, maxSize, out);
+            }
+            if (Files.size(temp) > maxSize) {
+                throw new IOException("pack too large: " + Files.size(temp) + " bytes");
+            }
+
+            byte[][] sorted = new byte[count][];
+            Integer[] order = new Integer[count];
+            for (int k = 0; k < count; k += 1) {
+                sorted[k] = ObjectId.fromHex(objects.get(start + k).id).toBytes();
+                order[k] = k;
+            }
+            Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(sorted[a], sorted[b]));
+            MessageDigest md = Utils.sha1Digester();
+            for (Integer k : order) {
+                md.update(sorted[k]);
+            }
+            String name = "pack-" + Utils.toHex(md.digest());
+            File packFile = Utils.join(dir, name + ".pack"),
+                indexFile = Utils.join(dir, name + ".idx");
+            if (!indexFile.exists()) {
+                Files.move(temp, packFile.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                           StandardCopyOption.REPLACE_EXISTING);
+                temp = Files.createTempFile(dir.toPath(), "idx", ".tmp");
+                writeIndex(temp, sorted, order, offsets);
+                Files.move(temp, indexFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            }
+            return new PackFile(indexFile);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /** Return an upper bound on the length of the entry for an object of
+     *  LENGTH bytes: its type, the distance to its base, and its contents
+     *  (or a delta shorter than them) deflated. Deflating adds at most 5
+     *  bytes to each stored block of 16 KB, and 6 to the stream. */
+    private static long bound(long length) {
+        return 1 + 10 + length + (length >> 10) + 64;
+    }
+
+    /** Write the entries for the first of OBJECTS, taken from STORE, to
+     *  OUT, stopping before one that might take OUT past MAXSIZE bytes,
+     *  and return the number written. Sets OFFSETS[k] to the offset of
+     *  OBJECTS[k]. */
+    private static int writeEntries(BlobStore store, List<Sized> objects,
+                                    long[] offsets, long maxSize, CountingStream out)
+        throws IOException {
+        /* Recent objects that may serve as bases, with their contents,
+         * offsets, and depths. */
+        ArrayDeque<Base> window = new ArrayDeque<>();
+        Deflater deflater = new Deflater();
+        try {
+            for (int k = 0; k < objects.size(); k += 1) {
+                Sized obj = objects.get(k);
+                if (k > 0 && out.count() + bound(obj.length) > maxSize) {
+                    return k;
+                }
+                offsets[k] = out.count();
+                if (obj.length > MAX_DELTA_SIZE) {
+                    out.write(FULL);
+                    try (InputStream in = store.open(obj.id)) {
+                        deflate(in, deflater, out);
+                    }
+                    continue;
+                }
+                byte[] contents;
+                try (InputStream in = store.open(obj.id)) {
+                    contents = in.readAllBytes();
+                }
+                Base best = null;
+                byte[] bestDelta = null;
+                for (Base base : window) {
+                    if (base.depth < MAX_DEPTH) {
+                        int limit = bestDelta == null ? contents.length / 2
+                            : bestDelta.length;
+                        byte[] delta = Delta.create(base.contents, contents, limit);
+                        if (delta != null) {
+                            best = base;
+                            bestDelta = delta;
+                        }
+                    }
+                }
+                int depth = 0;
+                if (best == null) {
+                    out.write(FULL);
+                    deflate(new ByteArrayInputStream(contents), deflater, out);
+                } else {
+                    out.write(DELTA);
+                    ByteArrayOutputStream distance = new ByteArrayOutputStream();
+                    Delta.writeVarint(distance, offsets[k] - best.offset);
+                    distance.writeTo(out);
+                    deflate(new ByteArrayInputStream(bestDelta), deflater, out);
+                    depth = best.depth + 1;
+                }
+                window.addFirst(new Base(contents, offsets[k], depth));
+                if (window.size() > WINDOW) {
+                    window.removeLast();
+                }
+            }
+            return objects.size();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /** Write the index of a pack to TEMP, where IDS are the objects' ids
+     *  in pack order, ORDER the positions in IDS in increasing order of
+     *  id, and OFFSETS the objects' offsets in the pack. */
+    private static void writeIndex(Path temp, byte[][] ids, Integer[] order,
+                                   long[] offsets) throws IOException {
+        int[] fanout = new int[256];
+        for (byte[] id : ids) {
+            fanout[id[0] & 0xff] += 1;
+        }
+        for (int b = 1; b < 256; b += 1) {
+            fanout[b] += fanout[b - 1];
+        }
+        ByteBuffer header = ByteBuffer.allocate(IDS_START);
+        header.put(INDEX_MAGIC).putInt(VERSION);
+        for (int count : fanout) {
+            header.putInt(count);
+        }
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp),
+                                                         BUFFER_SIZE)) {
+            out.write(header.array());
+            for (Integer k : order) {
+                out.write(ids[k]);
+            }
+            ByteBuffer offset = ByteBuffer.allocate(8);
+            for (Integer k : order) {
+                offset.clear();
+                out.write(offset.putLong(offsets[k]).array());
+            }
+        }
+    }
+
+    /** Compress all of IN with DEFLATER as a zlib stream onto OUT,
+     *  leaving OUT open and DEFLATER ready for reuse. */
+    private static void deflate(InputStream in, Deflater deflater, OutputStream out)
+        throws IOException {
+        OutputStream shield = new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        DeflaterOutputStream zip = new DeflaterOutputStream(shield, deflater, BUFFER_SIZE);
+        in.transferTo(zip);
+        zip.finish();
+        deflater.reset();
+    }
+
+    /** Return the length of the contents of the object with id ID in
+     *  STORE. */
+    private static long length(BlobStore store, String id) throws IOException {
+        long n = 0;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = store.open(id)) {
+            for (int k = in.read(buffer); k >= 0; k = in.read(buffer)) {
+                n += k;
+            }
+        }
+        return n;
+    }
+
+    /** Return a read-only map of FILE. */
+    private static MappedByteBuffer map(File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                                                    StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("pack too large to map: " + file);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    /** Return the varint in BUFFER at POS[0], advancing POS[0] past it. */
+    private static int readVarint(ByteBuffer buffer, int[] pos) {
+        int n = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = buffer.get(pos[0]++) & 0xff;
+            n |= (b & 0x7F) << shift;
+            if (b < 0x80) {
+                return n;
+            }
+        }
+        throw new IllegalArgumentException("corrupt pack");
+    }
+
+    /** An object id and the length of its contents. */
+    private static class Sized {
+        Sized(String id, long length) {
+            this.id = id;
+            this.length = length;
+        }
+
+        final String id;
+        final long length;
+    }
+
+    /** A candidate delta base: its contents, its offset, and the length of
+     *  its chain of deltas. */
+    private static class Base {
+        Base(byte[] contents, long offset, int depth) {
+            this.contents = contents;
+            this.offset = offset;
+            this.depth = depth;
+        }
+
+        final byte[] contents;
+        final long offset;
+        final int depth;
+    }
+
+    /** An OutputStream that counts the bytes written through it. */
+    private static class CountingStream extends BufferedOutputStream {
+        CountingStream(OutputStream out) {
+            super(out, BUFFER_SIZE);
+        }
+
+        @Override
+        public synchronized void write(int b) throws IOException {
+            super.write(b);
+            _count += 1;
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) throws IOException {
+            super.write(b, off, len);
+            _count += len;
+        }
+
+        /** Return the number of bytes written. */
+        long count() {
+            return _count;
+        }
+
+        /** Bytes written. */
+        private long _count;
+    }
+
+    /** An InputStream over a ByteBuffer from a starting position to its
+     *  end, without copying. */
+    private static class BufferInputStream extends InputStream {
+        BufferInputStream(ByteBuffer buffer, int start) {
+            _buffer = buffer.duplicate();
+            _buffer.position(start);
+        }
+
+        @Override
+        public int read() {
+            return _buffer.hasRemaining() ? _buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!_buffer.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, _buffer.remaining());
+            _buffer.get(b, off, len);
+            return len;
+        }
+
+        /** Remaining bytes. */
+        private final ByteBuffer _buffer;
+    }
+
+    /** The index and pack files. */
+    private final File _indexFile, _packFile;
+    /** Maps of the index and pack files. */
+    private final MappedByteBuffer _index, _pack;
+    /** Number of objects. */
+    private final int _count;
+    /** Offset in the index of the first pack offset. */
+    private final int _offsetsStart;
+}
@@ -24,6 +24,8 @@ public class Repository {
     public static final File CWD = new File(System.getProperty("user.dir"));
     /** The .gitlet directory. */
     public static final File GITLET_DIR = join(CWD, ".gitlet");
+    /** The directory of blobs, in the layout of BlobStore. */
+    public static final File OBJECTS_DIR = join(GITLET_DIR, "objects");
 
     /* TODO: fill in the rest of this class. */
 }
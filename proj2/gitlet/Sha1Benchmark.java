@@ -0,0 +1,94 @@
+package gitlet;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Formatter;
+
+/** Measures hashes per second of Utils.sha1 and Utils.sha1Id against the
+ *  former implementation of sha1, which looked up a new MessageDigest and
+ *  formatted each byte with java.util.Formatter. Inputs are short, like
+ *  the commit metadata and file names hashed by status and commit:
+ *      java gitlet.Sha1Benchmark [SECONDS]
+ */
+public class Sha1Benchmark {
+
+    /** Number of distinct inputs cycled through. */
+    private static final int INPUTS = 1024;
+
+    /** The former Utils.sha1, for comparison. */
+    private static String formatterSha1(Object... vals) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-1");
+            for (Object val : vals) {
+                if (val instanceof byte[]) {
+                    md.update((byte[]) val);
+                } else {
+                    md.update(((String) val).getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            Formatter result = new Formatter();
+            for (byte b : md.digest()) {
+                result.format("%02x", b);
+            }
+            return result.toString();
+        } catch (NoSuchAlgorithmException excp) {
+            throw new IllegalArgumentException("System does not support SHA-1");
+        }
+    }
+
+    /** A hash function under test. */
+    private interface Hasher {
+        /** Return some hash of VALS. */
+        Object hash(Object... vals);
+    }
+
+    /** Return the rate in hashes per second of HASHER over SECONDS,
+     *  after an equal warm-up. */
+    private static double rate(Hasher hasher, String[] names, byte[][] contents,
+                               double seconds) {
+        double result = 0;
+        for (int pass = 0; pass < 2; pass += 1) {
+            long start = System.nanoTime();
+            long end = start + (long) (seconds * 1e9);
+            long count = 0;
+            int sink = 0;
+            long now;
+            do {
+                for (int i = 0; i < INPUTS; i += 1) {
+                    sink += hasher.hash(names[i], contents[i]).hashCode();
+                }
+                count += INPUTS;
+                now = System.nanoTime();
+            } while (now < end);
+            result = count / ((now - start) / 1e9);
+            if (sink == 42) {
+                System.out.print("");
+            }
+        }
+        return result;
+    }
+
+    /** Print hashes per second of each implementation. ARGS may give the
+     *  seconds to time each. */
+    public static void main(String... args) {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 2.0;
+        String[] names = new String[INPUTS];
+        byte[][] contents = new byte[INPUTS][];
+        for (int i = 0; i < INPUTS; i += 1) {
+            names[i] = "src/main/file" + i + ".txt";
+            contents[i] = ("line " + i + " of some file contents\n").getBytes(StandardCharsets.UTF_8);
+        }
+        if (!formatterSha1(names[1], contents[1]).equals(Utils.sha1(names[1], contents[1]))
+            || !Utils.sha1(names[1], contents[1])
+                .equals(Utils.sha1Id(names[1], contents[1]).toString())) {
+            throw new AssertionError("implementations disagree");
+        }
+        double before = rate(Sha1Benchmark::formatterSha1, names, contents, seconds);
+        double after = rate(Utils::sha1, names, contents, seconds);
+        double raw = rate(Utils::sha1Id, names, contents, seconds);
+        System.out.printf("%-28s %12.0f hashes/s%n", "Formatter, new digest", before);
+        System.out.printf("%-28s %12.0f hashes/s  (%.1fx)%n", "Utils.sha1", after, after / before);
+        System.out.printf("%-28s %12.0f hashes/s  (%.1fx)%n", "Utils.sha1Id", raw, raw / before);
+    }
+}
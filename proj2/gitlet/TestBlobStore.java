@@ -0,0 +1,197 @@
+package gitlet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.*;
+
+/** Tests of BlobStore. */
+public class TestBlobStore {
+
+    /** Directory of each test's store and files. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** Source of contents. */
+    private final Random _random = new Random(47);
+
+    /** Return LENGTH random bytes. */
+    private byte[] randomBytes(int length) {
+        byte[] result = new byte[length];
+        _random.nextBytes(result);
+        return result;
+    }
+
+    /** Return a new file containing CONTENTS. */
+    private File newFile(byte[] contents) throws IOException {
+        File file = folder.newFile();
+        Utils.writeContents(file, (Object) contents);
+        return file;
+    }
+
+    /** Return the contents of the object with id ID in STORE. */
+    private static byte[] read(BlobStore store, String id) throws IOException {
+        try (InputStream in = store.open(id)) {
+            return in.readAllBytes();
+        }
+    }
+
+    /** Return the contents of every file under DIR, by path. */
+    private static Map<String, byte[]> snapshot(File dir) throws IOException {
+        Map<String, byte[]> result = new TreeMap<>();
+        try (Stream<Path> paths = Files.walk(dir.toPath())) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                if (Files.isRegularFile(path)) {
+                    result.put(dir.toPath().relativize(path).toString(),
+                               Files.readAllBytes(path));
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Asserts that the snapshots EXPECTED and ACTUAL are equal. */
+    private static void assertSnapshot(Map<String, byte[]> expected,
+                                       Map<String, byte[]> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        for (String path : expected.keySet()) {
+            assertArrayEquals(path, expected.get(path), actual.get(path));
+        }
+    }
+
+    @Test
+    public void testPutId() throws IOException {
+        BlobStore store = new BlobStore(folder.newFolder());
+        for (int length : new int[] { 0, 1, 1000, (1 << 16) - 1, 1 << 16, 300_000 }) {
+            byte[] contents = randomBytes(length);
+            String id = store.put(newFile(contents));
+            assertEquals(Utils.sha1(contents), id);
+            assertTrue(store.contains(id));
+            assertTrue(store.file(id).isFile());
+            assertEquals(id.substring(0, 2), store.file(id).getParentFile().getName());
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        BlobStore store = new BlobStore(folder.newFolder());
+        for (int length : new int[] { 0, 17, 1 << 16, 1 << 20 }) {
+            byte[] contents = randomBytes(length);
+            String id = store.put(newFile(contents));
+            assertArrayEquals(contents, read(store, id));
+            File out = folder.newFile();
+            store.copyTo(id, out);
+            assertArrayEquals(contents, Utils.readContents(out));
+        }
+    }
+
+    @Test
+    public void testLevels() throws IOException {
+        byte[] text = "compressible line of text\n".repeat(10_000).getBytes();
+        byte[][] contents = { new byte[0], randomBytes(100_000), text };
+        for (int level = Deflater.DEFAULT_COMPRESSION;
+             level <= Deflater.BEST_COMPRESSION; level += 1) {
+            BlobStore store = new BlobStore(folder.newFolder(), level);
+            for (byte[] data : contents) {
+                String id = store.put(newFile(data));
+                assertEquals(Utils.sha1(data), id);
+                assertArrayEquals(data, read(store, id));
+                File out = folder.newFile();
+                store.copyTo(id, out);
+                assertArrayEquals(data, Utils.readContents(out));
+            }
+            long stored = store.file(Utils.sha1(text)).length();
+            if (level == Deflater.NO_COMPRESSION) {
+                assertTrue(stored >= text.length);
+            } else {
+                assertTrue("level " + level + " stored " + stored + " bytes",
+                           stored < text.length / 10);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadLevel() throws IOException {
+        new BlobStore(folder.newFolder(), Deflater.BEST_COMPRESSION + 1);
+    }
+
+    @Test
+    public void testObjects() throws IOException {
+        File dir = folder.newFolder();
+        BlobStore store = new BlobStore(dir);
+        ArrayList<String> list = new ArrayList<>();
+        for (int i = 0; i < 1000; i += 1) {
+            list.add("item " + i);
+        }
+        String id = store.putObject(list);
+        assertEquals(Utils.sha1(Utils.serialize(list)), id);
+        assertEquals(id, store.putObject(new ArrayList<>(list)));
+        assertEquals(list, store.getObject(id, ArrayList.class));
+        assertEquals(list, new BlobStore(dir).getObject(id, ArrayList.class));
+        assertEquals("message", store.getObject(store.putObject("message"), String.class));
+        try {
+            store.getObject(id, String.class);
+            fail("cast an ArrayList to String");
+        } catch (IllegalArgumentException excp) {
+            /* Expected. */
+        }
+    }
+
+    @Test
+    public void testPutExisting() throws IOException {
+        File dir = folder.newFolder();
+        BlobStore store = new BlobStore(dir);
+        byte[] contents = randomBytes(5000);
+        String id = store.put(newFile(contents));
+        store.put(newFile(randomBytes(10)));
+        Map<String, byte[]> before = snapshot(dir);
+        long modified = store.file(id).lastModified();
+
+        assertEquals(id, store.put(newFile(contents)));
+        assertEquals(id, new BlobStore(dir).put(newFile(contents)));
+        assertSnapshot(before, snapshot(dir));
+        assertEquals(modified, store.file(id).lastModified());
+    }
+
+    @Test
+    public void testMissing() throws IOException {
+        BlobStore store = new BlobStore(folder.newFolder());
+        String id = Utils.sha1("absent");
+        assertFalse(store.contains(id));
+        try {
+            store.open(id).close();
+            fail("opened a missing blob");
+        } catch (IllegalArgumentException excp) {
+            /* Expected. */
+        }
+        try {
+            store.copyTo(id, folder.newFile());
+            fail("copied a missing blob");
+        } catch (IllegalArgumentException excp) {
+            /* Expected. */
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPutDirectory() throws IOException {
+        new BlobStore(folder.newFolder()).put(folder.newFolder());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMalformedId() throws IOException {
+        new BlobStore(folder.newFolder()).contains("abc");
+    }
+}
@@ -0,0 +1,99 @@
+package gitlet;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Tests of Delta. */
+public class TestDelta {
+
+    /** Return LENGTH random bytes from RANDOM. */
+    private static byte[] randomBytes(Random random, int length) {
+        byte[] result = new byte[length];
+        random.nextBytes(result);
+        return result;
+    }
+
+    /** Asserts that the delta of TARGET against BASE rebuilds TARGET, and
+     *  returns that delta. */
+    private static byte[] assertRoundTrip(byte[] base, byte[] target) {
+        byte[] delta = Delta.create(base, target, Integer.MAX_VALUE);
+        assertNotNull("no delta made", delta);
+        assertArrayEquals("wrong result of delta", target, Delta.apply(base, delta));
+        return delta;
+    }
+
+    @Test
+    public void testEmpty() {
+        byte[] data = "some contents".getBytes();
+        assertRoundTrip(new byte[0], new byte[0]);
+        assertRoundTrip(new byte[0], data);
+        assertRoundTrip(data, new byte[0]);
+    }
+
+    @Test
+    public void testShorterThanBlock() {
+        Random random = new Random(1);
+        for (int n = 1; n < 40; n += 1) {
+            byte[] base = randomBytes(random, n % 17);
+            assertRoundTrip(base, Arrays.copyOf(base, n % 16));
+            assertRoundTrip(base, randomBytes(random, n % 15));
+        }
+    }
+
+    @Test
+    public void testIdentical() {
+        byte[] data = randomBytes(new Random(2), 100_000);
+        byte[] delta = assertRoundTrip(data, data.clone());
+        assertTrue("delta of identical arrays is " + delta.length + " bytes",
+                   delta.length < 20);
+    }
+
+    @Test
+    public void testUnrelated() {
+        Random random = new Random(3);
+        for (int n : new int[] { 15, 16, 17, 1000, 65_537 }) {
+            byte[] base = randomBytes(random, n), target = randomBytes(random, n);
+            byte[] delta = assertRoundTrip(base, target);
+            assertTrue("unrelated delta shorter than its target",
+                       delta.length > target.length);
+        }
+    }
+
+    @Test
+    public void testEdits() {
+        Random random = new Random(4);
+        byte[] base = randomBytes(random, 50_000);
+        for (int trial = 0; trial < 50; trial += 1) {
+            int at = random.nextInt(base.length), cut = random.nextInt(100);
+            byte[] insert = randomBytes(random, random.nextInt(100));
+            byte[] target = new byte[base.length - Math.min(cut, base.length - at)
+                                     + insert.length];
+            System.arraycopy(base, 0, target, 0, at);
+            System.arraycopy(insert, 0, target, at, insert.length);
+            System.arraycopy(base, Math.min(at + cut, base.length), target,
+                             at + insert.length, target.length - at - insert.length);
+            byte[] delta = assertRoundTrip(base, target);
+            assertTrue("delta of one edit is " + delta.length + " bytes",
+                       delta.length < insert.length + 64);
+        }
+    }
+
+    @Test
+    public void testLimit() {
+        Random random = new Random(5);
+        byte[] base = randomBytes(random, 1000), target = randomBytes(random, 1000);
+        assertNull(Delta.create(base, target, 500));
+        assertNull(Delta.create(base, base, 2));
+        assertNotNull(Delta.create(base, base, 100));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongBase() {
+        byte[] base = randomBytes(new Random(6), 100);
+        Delta.apply(new byte[99], Delta.create(base, base, Integer.MAX_VALUE));
+    }
+}
@@ -0,0 +1,84 @@
+package gitlet;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Tests of ObjectId and Utils.sha1Id. */
+public class TestObjectId {
+
+    @Test
+    public void testMatchesSha1() {
+        for (int i = 0; i < 100; i += 1) {
+            String name = "file" + i;
+            byte[] contents = ("contents " + i).getBytes();
+            String hex = Utils.sha1(name, contents);
+            ObjectId id = Utils.sha1Id(name, contents);
+            assertEquals(hex, id.toString());
+            assertEquals(id, ObjectId.fromHex(hex));
+            assertEquals(id, ObjectId.fromHex(hex.toUpperCase()));
+            assertEquals(id.hashCode(), ObjectId.fromHex(hex).hashCode());
+            assertEquals(id, new ObjectId(id.toBytes()));
+        }
+    }
+
+    @Test
+    public void testOrder() {
+        Random random = new Random(48);
+        List<ObjectId> ids = new ArrayList<>();
+        List<String> hexes = new ArrayList<>();
+        for (int i = 0; i < 1000; i += 1) {
+            byte[] digest = new byte[ObjectId.LENGTH];
+            random.nextBytes(digest);
+            if (i % 10 == 0) {
+                /* Ids differing only in their last bytes. */
+                digest = ids.isEmpty() ? digest : ids.get(i - 1).toBytes();
+                digest[ObjectId.LENGTH - 1 - (i / 10) % 3] ^= (byte) 0x80;
+            }
+            ids.add(new ObjectId(digest));
+            hexes.add(Utils.toHex(digest));
+        }
+        Collections.sort(ids);
+        Collections.sort(hexes);
+        for (int i = 0; i < ids.size(); i += 1) {
+            assertEquals(hexes.get(i), ids.get(i).toString());
+        }
+        ObjectId low = ObjectId.fromHex("7f" + "ff".repeat(19)),
+            high = ObjectId.fromHex("80" + "00".repeat(19));
+        assertTrue(low.compareTo(high) < 0);
+        assertTrue(high.compareTo(low) > 0);
+        assertEquals(0, low.compareTo(ObjectId.fromHex(low.toString())));
+    }
+
+    /** Asserts that fromHex rejects HEX. */
+    private static void assertMalformed(String hex) {
+        try {
+            ObjectId.fromHex(hex);
+            fail("accepted " + hex);
+        } catch (IllegalArgumentException excp) {
+            /* Expected. */
+        }
+    }
+
+    @Test
+    public void testMalformed() {
+        String hex = Utils.sha1("x");
+        assertMalformed("");
+        assertMalformed(hex.substring(1));
+        assertMalformed(hex + "0");
+        assertMalformed("g" + hex.substring(1));
+        assertMalformed(hex.substring(1) + " ");
+        assertMalformed("\uff10" + hex.substring(1));
+        assertMalformed("\u0660" + hex.substring(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testShortDigest() {
+        new ObjectId(new byte[ObjectId.LENGTH - 1]);
+    }
+}
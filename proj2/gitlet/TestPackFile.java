@@ -0,0 +1,184 @@
+package gitlet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Tests of BlobStore.gc and the PackFiles it writes. */
+public class TestPackFile {
+
+    /** Directory of each test's store and files. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** Source of contents. */
+    private final Random _random = new Random(50);
+
+    /** Contents of the objects stored, by id. */
+    private final Map<String, byte[]> _stored = new HashMap<>();
+
+    /** Return LENGTH random bytes. */
+    private byte[] randomBytes(int length) {
+        byte[] result = new byte[length];
+        _random.nextBytes(result);
+        return result;
+    }
+
+    /** Store CONTENTS in STORE as a file, and return its id. */
+    private String put(BlobStore store, byte[] contents) throws IOException {
+        File file = folder.newFile();
+        Utils.writeContents(file, (Object) contents);
+        String id = store.put(file);
+        _stored.put(id, contents);
+        return id;
+    }
+
+    /** Store COUNT successive edits of a random file of LENGTH bytes in
+     *  STORE. */
+    private void putVersions(BlobStore store, int count, int length)
+        throws IOException {
+        byte[] contents = randomBytes(length);
+        for (int k = 0; k < count; k += 1) {
+            int at = _random.nextInt(contents.length - 10);
+            System.arraycopy(randomBytes(10), 0, contents, at, 10);
+            put(store, contents.clone());
+        }
+    }
+
+    /** Return the contents of the object with id ID in STORE. */
+    private static byte[] read(BlobStore store, String id) throws IOException {
+        try (InputStream in = store.open(id)) {
+            return in.readAllBytes();
+        }
+    }
+
+    /** Asserts that STORE holds exactly what was stored. */
+    private void assertStored(BlobStore store) throws IOException {
+        for (Map.Entry<String, byte[]> entry : _stored.entrySet()) {
+            assertTrue(store.contains(entry.getKey()));
+            assertArrayEquals("wrong contents of " + entry.getKey(),
+                              entry.getValue(), read(store, entry.getKey()));
+        }
+        String missing = Utils.sha1("not stored");
+        assertFalse(store.contains(missing));
+        try {
+            store.open(missing).close();
+            fail("opened a missing object");
+        } catch (IllegalArgumentException excp) {
+            /* Expected. */
+        }
+    }
+
+    /** Return the number of packs in the store in DIR. */
+    private static int packs(File dir) {
+        List<String> names = Utils.plainFilenamesIn(Utils.join(dir, "pack"));
+        int n = 0;
+        for (String name : names == null ? new ArrayList<String>() : names) {
+            if (name.endsWith(".idx")) {
+                n += 1;
+            }
+        }
+        return n;
+    }
+
+    /** Return the number of loose objects in the store in DIR. */
+    private static int loose(File dir) {
+        int n = 0;
+        for (File sub : dir.listFiles()) {
+            if (sub.isDirectory() && sub.getName().length() == 2) {
+                n += sub.listFiles().length;
+            }
+        }
+        return n;
+    }
+
+    @Test
+    public void testGc() throws IOException {
+        File dir = folder.newFolder();
+        BlobStore store = new BlobStore(dir);
+        assertEquals(0, store.gc());
+        put(store, new byte[0]);
+        put(store, randomBytes(10));
+        putVersions(store, 3 * 10 + 5, 20_000);
+        putVersions(store, 5, 3000);
+        assertStored(store);
+
+        assertEquals(_stored.size(), store.gc());
+        assertEquals(0, loose(dir));
+        assertEquals(1, packs(dir));
+        assertStored(store);
+        assertStored(new BlobStore(dir));
+        assertEquals(0, store.gc());
+    }
+
+    @Test
+    public void testSecondGc() throws IOException {
+        File dir = folder.newFolder();
+        BlobStore store = new BlobStore(dir);
+        putVersions(store, 10, 5000);
+        store.gc();
+        putVersions(store, 10, 5000);
+        String again = _stored.keySet().iterator().next();
+        assertEquals(again, put(store, _stored.get(again)));
+        assertStored(store);
+
+        assertEquals(_stored.size(), store.gc());
+        assertEquals(0, loose(dir));
+        assertEquals(1, packs(dir));
+        assertStored(store);
+    }
+
+    @Test
+    public void testLargeObject() throws IOException {
+        File dir = folder.newFolder();
+        BlobStore store = new BlobStore(dir, 1);
+        byte[] large = new byte[(1 << 24) + 1000];
+        for (int k = 0; k < large.length; k += 1) {
+            large[k] = (byte) (k % 251);
+        }
+        put(store, large);
+        large = large.clone();
+        large[1] = 1;
+        put(store, large);
+        store.gc();
+        assertEquals(0, loose(dir));
+        assertStored(store);
+    }
+
+    @Test
+    public void testSplit() throws IOException {
+        File dir = folder.newFolder();
+        BlobStore store = new BlobStore(dir);
+        for (int k = 0; k < 20; k += 1) {
+            put(store, randomBytes(1000));
+        }
+        String large = put(store, randomBytes(5000));
+        assertEquals(20, store.gc(4000));
+        assertTrue(packs(dir) > 1);
+        assertEquals(1, loose(dir));
+        assertTrue(store.file(large).isFile());
+        assertStored(store);
+
+        assertEquals(21, store.gc());
+        assertEquals(1, packs(dir));
+        assertEquals(0, loose(dir));
+        assertStored(store);
+
+        put(store, randomBytes(100));
+        assertEquals(21, store.gc(4000));
+        assertEquals(1, loose(dir));
+        assertTrue(store.file(large).isFile());
+        assertStored(store);
+    }
+}
@@ -15,7 +15,6 @@ import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
-import java.util.Formatter;
 import java.util.List;
 
 
@@ -33,28 +32,67 @@ class Utils {
 
     /* SHA-1 HASH VALUES. */
 
+    /** Each thread's SHA-1 digester. MessageDigest.getInstance searches
+     *  the security providers on every call, so each thread makes one and
+     *  reuses it. */
+    private static final ThreadLocal<MessageDigest> SHA1_DIGEST =
+        ThreadLocal.withInitial(() -> {
+            try {
+                return MessageDigest.getInstance("SHA-1");
+            } catch (NoSuchAlgorithmException excp) {
+                throw new IllegalArgumentException("System does not support SHA-1");
+            }
+        });
+
+    /** Lower-case hexadecimal digits, by value. */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
     /** Returns the SHA-1 hash of the concatenation of VALS, which may
      *  be any mixture of byte arrays and Strings. */
     static String sha1(Object... vals) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-1");
-            for (Object val : vals) {
-                if (val instanceof byte[]) {
-                    md.update((byte[]) val);
-                } else if (val instanceof String) {
-                    md.update(((String) val).getBytes(StandardCharsets.UTF_8));
-                } else {
-                    throw new IllegalArgumentException("improper type to sha1");
-                }
-            }
-            Formatter result = new Formatter();
-            for (byte b : md.digest()) {
-                result.format("%02x", b);
+        return toHex(sha1Digest(vals));
+    }
+
+    /** Returns the SHA-1 hash of the concatenation of VALS, as for sha1,
+     *  as an ObjectId. */
+    static ObjectId sha1Id(Object... vals) {
+        return new ObjectId(sha1Digest(vals));
+    }
+
+    /** Returns the 20-byte SHA-1 digest of the concatenation of VALS,
+     *  which may be any mixture of byte arrays and Strings. */
+    private static byte[] sha1Digest(Object... vals) {
+        MessageDigest md = sha1Digester();
+        for (Object val : vals) {
+            if (val instanceof byte[]) {
+                md.update((byte[]) val);
+            } else if (val instanceof String) {
+                md.update(((String) val).getBytes(StandardCharsets.UTF_8));
+            } else {
+                md.reset();
+                throw new IllegalArgumentException("improper type to sha1");
             }
-            return result.toString();
-        } catch (NoSuchAlgorithmException excp) {
-            throw new IllegalArgumentException("System does not support SHA-1");
         }
+        return md.digest();
+    }
+
+    /** Returns this thread's SHA-1 digester, reset. Its digest() resets it
+     *  again, so it need not be returned. */
+    static MessageDigest sha1Digester() {
+        MessageDigest md = SHA1_DIGEST.get();
+        md.reset();
+        return md;
+    }
+
+    /** Returns BYTES as a hexadecimal numeral, two lower-case digits per
+     *  byte. */
+    static String toHex(byte[] bytes) {
+        char[] result = new char[2 * bytes.length];
+        for (int i = 0; i < bytes.length; i += 1) {
+            result[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+            result[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xf];
+        }
+        return new String(result);
     }
 
     /** Returns the SHA-1 hash of the concatenation of the strings in